@@ -0,0 +1,86 @@
+package bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DecodeBenchmark - Reading a stream through {@code InputStreamReader} (UTF-8 decode)
+ * vs reading the bytes as they are.
+ *
+ * <pre>
+ * decodeUtf8   InputStream ─InputStreamReader(UTF-8)─→ char[]   (what every Reader pays)
+ * rawBytes     InputStream ─→ byte[]                            (LineCodec, pumps)
+ * </pre>
+ *
+ * <p>An echo server never looks at the characters, so the decode is pure overhead. The
+ * score is per stream of {@code size} bytes; ASCII takes the JDK's fast path, the
+ * {@code turkish} mix does not.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+
+  @Param({"64", "8192", "1048576"})
+  public int size;
+
+  @Param({"ascii", "turkish"})
+  public String content;
+
+  private byte[] input;
+  private byte[] bytes;
+  private char[] chars;
+
+  @Setup
+  public void setUp() {
+    input = Payloads.message(content, size).getBytes(StandardCharsets.UTF_8);
+    bytes = new byte[8192];
+    chars = new char[8192];
+  }
+
+  @Benchmark
+  public long decodeUtf8() throws IOException {
+    Reader in = new InputStreamReader(new ByteArrayInputStream(input), StandardCharsets.UTF_8);
+    long total = 0;
+    int n;
+    while ((n = in.read(chars)) != -1) {
+      total += n + chars[0];
+    }
+    return total;
+  }
+
+  @Benchmark
+  public long rawBytes() throws IOException {
+    InputStream in = new ByteArrayInputStream(input);
+    long total = 0;
+    int n;
+    while ((n = in.read(bytes)) != -1) {
+      total += n + bytes[0];
+    }
+    return total;
+  }
+
+}
@@ -0,0 +1,84 @@
+package bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * EchoEncodeBenchmark - Building the {@code "Echo: " + message + "\n"} response.
+ *
+ * <pre>
+ * stringConcat        String message ─concat─→ String ─getBytes─→ byte[]
+ *                     (PrintWriter.println("Echo: " + message) minus the writer)
+ * decodeConcatEncode  byte[] ─new String─→ String ─concat─→ String ─getBytes─→ byte[]
+ *                     (the full per-message path of LoopingEchoServer)
+ * byteCopy            byte[] ─arraycopy prefix + bytes + '\n'─→ reused byte[]
+ *                     (LineCodec.writeEcho, copied here)
+ * </pre>
+ *
+ * <p>Run with {@code -prof gc}: the string paths allocate two to four objects per
+ * message, {@code byteCopy} none.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EchoEncodeBenchmark {
+
+  private static final String PREFIX = "Echo: ";
+  private static final byte[] PREFIX_BYTES = PREFIX.getBytes(StandardCharsets.US_ASCII);
+
+  @Param({"16", "256", "4096"})
+  public int length;
+
+  @Param({"ascii", "turkish"})
+  public String content;
+
+  private String message;
+  private byte[] messageBytes;
+  private byte[] out;
+
+  @Setup
+  public void setUp() {
+    message = Payloads.message(content, length);
+    messageBytes = message.getBytes(StandardCharsets.UTF_8);
+    out = new byte[PREFIX_BYTES.length + messageBytes.length + 1];
+  }
+
+  @Benchmark
+  public byte[] stringConcat() {
+    return (PREFIX + message + "\n").getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public byte[] decodeConcatEncode() {
+    String decoded = new String(messageBytes, StandardCharsets.UTF_8);
+    return (PREFIX + decoded + "\n").getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public byte[] byteCopy() {
+    byte[] o = out;
+    System.arraycopy(PREFIX_BYTES, 0, o, 0, PREFIX_BYTES.length);
+    System.arraycopy(messageBytes, 0, o, PREFIX_BYTES.length, messageBytes.length);
+    o[o.length - 1] = '\n';
+    return o;
+  }
+
+}
@@ -0,0 +1,64 @@
+package bench;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Payloads - Test input shared by the benchmarks.
+ *
+ * <p>{@code ascii} is what most echo and terminal traffic looks like; {@code turkish}
+ * mixes in the 2-byte characters and the 4-byte emoji used by {@code ByteVsChar}, which
+ * take the UTF-8 slow paths in the JDK coders.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class Payloads {
+
+  private static final String ASCII_SEED = "Hello TCP server! ";
+  private static final String TURKISH_SEED = "Merhaba çağ!🚀 ";
+
+  private Payloads() {
+  }
+
+  /**
+   * A message of roughly {@code length} UTF-8 bytes, without a line terminator.
+   *
+   * @param content {@code ascii} or {@code turkish}
+   * @param length  target size in bytes
+   * @return the message
+   */
+  static String message(String content, int length) {
+    String seed = switch (content) {
+      case "ascii" -> ASCII_SEED;
+      case "turkish" -> TURKISH_SEED;
+      default -> throw new IllegalArgumentException("Unknown content: " + content);
+    };
+    StringBuilder sb = new StringBuilder(length);
+    int bytes = 0;
+    // Append whole code points while they still fit in `length` bytes
+    for (int i = 0; ; i = (i + 1) % seed.codePointCount(0, seed.length())) {
+      int cp = seed.codePointAt(seed.offsetByCodePoints(0, i));
+      int size = cp < 0x80 ? 1 : cp < 0x800 ? 2 : cp < 0x10000 ? 3 : 4;
+      if (bytes + size > length) {
+        return sb.toString();
+      }
+      sb.appendCodePoint(cp);
+      bytes += size;
+    }
+  }
+
+  /**
+   * {@code count} copies of {@code message + '\n'} as one UTF-8 byte stream, the shape
+   * of pipelined input on a socket.
+   */
+  static byte[] lines(String message, int count) {
+    byte[] line = (message + "\n").getBytes(StandardCharsets.UTF_8);
+    byte[] all = new byte[line.length * count];
+    for (int i = 0; i < count; i++) {
+      System.arraycopy(line, 0, all, i * line.length, line.length);
+    }
+    return all;
+  }
+
+}
@@ -0,0 +1,124 @@
+package bench;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * ReadLineBenchmark - Splitting a byte stream into lines: {@code BufferedReader.readLine()}
+ * vs scanning bytes for {@code '\n'}.
+ *
+ * <pre>
+ * bufferedReader   bytes ─InputStreamReader─→ chars ─BufferedReader─→ String per line
+ *                  (LoopingEchoServer, BasicTerminalServer)
+ * byteScan         bytes ─scan for '\n'─→ [start, end) in a reused array
+ *                  (LineCodec.readLine / LineCodec.indexOf, copied here)
+ * </pre>
+ *
+ * <p>Both read {@value #LINES} pipelined lines per invocation from an in-memory stream;
+ * scores are per line. Run with {@code -prof gc} to see {@code gc.alloc.rate.norm}: the
+ * reader path allocates a {@code char[]} and a {@code String} per line, the scan path
+ * nothing in steady state.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadLineBenchmark {
+
+  static final int LINES = 1000;
+
+  @Param({"16", "256", "4096"})
+  public int lineLength;
+
+  @Param({"ascii", "turkish"})
+  public String content;
+
+  private byte[] input;
+  private byte[] buf;
+
+  @Setup
+  public void setUp() {
+    input = Payloads.lines(Payloads.message(content, lineLength), LINES);
+    buf = new byte[8192];
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LINES)
+  public void bufferedReader(Blackhole bh) throws IOException {
+    BufferedReader in = new BufferedReader(
+        new InputStreamReader(new ByteArrayInputStream(input), StandardCharsets.UTF_8));
+    String line;
+    while ((line = in.readLine()) != null) {
+      bh.consume(line);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LINES)
+  public void byteScan(Blackhole bh) throws IOException {
+    InputStream in = new ByteArrayInputStream(input);
+    byte[] b = buf;
+    int pos = 0;
+    int limit = 0;
+    while (true) {
+      int nl = indexOf(b, pos, limit, (byte) '\n');
+      if (nl >= 0) {
+        bh.consume(nl - pos);  // line is b[pos, nl), no copy
+        pos = nl + 1;
+        continue;
+      }
+      // Compact, grow if one line fills the buffer, read more
+      int pending = limit - pos;
+      System.arraycopy(b, pos, b, 0, pending);
+      pos = 0;
+      limit = pending;
+      if (limit == b.length) {
+        b = Arrays.copyOf(b, b.length * 2);
+        buf = b;
+      }
+      int n = in.read(b, limit, b.length - limit);
+      if (n == -1) {
+        return;
+      }
+      limit += n;
+    }
+  }
+
+  /**
+   * Same loop as {@code LineCodec.indexOf(byte[], int, int, byte)}.
+   */
+  static int indexOf(byte[] a, int from, int to, byte b) {
+    for (int i = from; i < to; i++) {
+      if (a[i] == b) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+}
@@ -0,0 +1,74 @@
+package bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Utf8RoundTripBenchmark - The String ↔ byte[] conversions that {@code ByteVsChar}
+ * demonstrates, timed.
+ *
+ * <pre>
+ * encode      String ─getBytes(UTF_8)─→ byte[]
+ * decode      byte[] ─new String(UTF_8)─→ String
+ * roundTrip   String ─→ byte[] ─→ String   (what a char-based echo does per message)
+ * </pre>
+ *
+ * <p>Since JDK 9 an ASCII-only String is stored as LATIN1 bytes (compact strings), so
+ * ASCII encode/decode is close to a copy. One non-Latin-1 character ({@code ğ},
+ * {@code 🚀}) switches the whole String to UTF-16 and both directions to real
+ * transcoding.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Utf8RoundTripBenchmark {
+
+  @Param({"16", "256", "4096"})
+  public int length;
+
+  @Param({"ascii", "turkish"})
+  public String content;
+
+  private String text;
+  private byte[] bytes;
+
+  @Setup
+  public void setUp() {
+    text = Payloads.message(content, length);
+    bytes = text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public byte[] encode() {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public String decode() {
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public String roundTrip() {
+    return new String(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+  }
+
+}
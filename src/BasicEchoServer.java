@@ -1,7 +1,4 @@
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.net.ServerSocket;
 import java.net.Socket;
 
@@ -21,8 +18,8 @@ import java.net.Socket;
  *   <li>ServerSocket: TCP server oluşturma</li>
  *   <li>Socket: Client bağlantısını temsil eder</li>
  *   <li>InputStream/OutputStream: Network üzerinden veri okuma/yazma</li>
- *   <li>BufferedReader: Satır satır text okuma</li>
- *   <li>PrintWriter: Text yazma (auto-flush ile)</li>
+ *   <li>Byte ve karakter: satır sonu bulmak için decode gerekmez</li>
+ *   <li>LineCodec: Satırı byte olarak okuma, buffer + flush ile yazma</li>
  *   <li>Blocking I/O: accept() ve readLine() bekler</li>
  * </ul>
  *
@@ -69,23 +66,13 @@ import java.net.Socket;
  *     <td>Raw data almak için</td>
  *   </tr>
  *   <tr>
- *     <td>InputStreamReader</td>
- *     <td>Byte → char çevirir</td>
- *     <td>Encoding (UTF-8) için</td>
+ *     <td>LineCodec</td>
+ *     <td>Byte'larda '\n' arar, "Echo: " + satırı byte olarak yazar</td>
+ *     <td>Decode/encode ve String olmadan echo</td>
  *   </tr>
  *   <tr>
- *     <td>BufferedReader</td>
- *     <td>Char → String, satır okur</td>
- *     <td>Kullanım kolaylığı</td>
- *   </tr>
- *   <tr>
- *     <td>PrintWriter</td>
- *     <td>String → byte, gönderir</td>
- *     <td>Text göndermek için</td>
- *   </tr>
- *   <tr>
- *     <td>Auto-flush</td>
- *     <td>Her println() sonrası gönder</td>
+ *     <td>flush()</td>
+ *     <td>Biriken cevabı tek write ile gönderir</td>
  *     <td>Hemen cevap için</td>
  *   </tr>
  *   <tr>
@@ -293,92 +280,73 @@ public class BasicEchoServer {
        * - InputStreamReader: Encoding (byte → char)
        * - BufferedReader: Kullanım kolaylığı (char → String)
        *
-       * Alternatif (kötü yol):
-       * ----------------------
-       * InputStream in = clientSocket.getInputStream();
-       * int b;
-       * StringBuilder sb = new StringBuilder();
-       * while ((b = in.read()) != -1 && b != '\n') {
-       *     sb.append((char) b);  // Manuel dönüşüm (zor!)
-       * }
-       * String message = sb.toString();
-       *
-       * Bizim yol (iyi):
-       * ----------------
+       * Klasik yol:
+       * -----------
        * BufferedReader in = new BufferedReader(
        *     new InputStreamReader(clientSocket.getInputStream())
        * );
        * String message = in.readLine();  // Tek satır!
+       *
+       * Bedeli: mesaj başına byte → char → String dönüşümü, cevapta da
+       * "Echo: " + message ile yeni String ve tekrar char → byte. Echo ise
+       * karakterlere hiç bakmaz!
+       *
+       * Bizim yol: Katman 1'de kalmak
+       * ------------------------------
+       * UTF-8'de 10 ('\n') byte'ı sadece newline demektir: Türkçe karakterlerin
+       * byte'ları hep 0x80 ve üstüdür (bkz. ByteVsChar). Yani satır sonu ham
+       * byte'larda bulunabilir ve satır decode edilmeden geri gönderilebilir:
+       *
+       * Network: [72, 101, 108, 108, 111, 10]  (byte)
+       *    ↓ LineCodec.readLine(): 10'u ara
+       * Java: [72, 101, 108, 108, 111]         (aynı byte'lar, kopya yok)
+       *    ↓ LineCodec.writeEcho()
+       * Java: "Echo: " byte'ları + [72, 101, 108, 108, 111] + 10
+       *
+       * LineCodec input ve output için birer byte array tutar ve tekrar kullanır:
+       * mesaj başına allocation yok.
        */
-      BufferedReader in = new BufferedReader(
-          new InputStreamReader(clientSocket.getInputStream()));
+      LineCodec codec = new LineCodec(
+          clientSocket.getInputStream(), clientSocket.getOutputStream(), 8192);
 
       /*
        * ═══════════════════════════════════════════════════════════════════════
-       * KAVRAM 4: Auto-flush (Otomatik Gönderme)
+       * KAVRAM 4: Buffer ve Flush (Gönderme)
        * ═══════════════════════════════════════════════════════════════════════
        *
-       * PrintWriter nedir?
-       * ------------------
-       * - Output stream'e text yazmak için
-       * - String'i byte'a çevirir
-       * - println(), print(), printf() metodları
-       * - İki parametre: OutputStream, auto-flush (boolean)
-       *
-       * Auto-flush = false (default):
-       * -----------------------------
-       * PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), false);
-       * out.println("Hello");  // Buffer'da bekler!
+       * writeEcho() cevabı hemen göndermez:
+       * ------------------------------------
+       * codec.writeEcho();  // Output buffer'ında bekler!
        * // Client GÖRMEZ!
-       * out.flush();           // Manuel gönder
+       * codec.flush();      // Tek write ile gönder
        * // Şimdi client görür
        *
-       * Auto-flush = true:
-       * ------------------
-       * PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true);
-       * out.println("Hello");  // Hemen gönderir!
-       * // Client HEMEN görür
-       *
        * Buffer nedir?
        * -------------
        * - Geçici bellek alanı
-       * - Veriyi toplar, dolunca gönderir
+       * - Veriyi toplar, flush() ile gönderir
        * - Performans için (her byte için network çağrısı yapmaz)
        *
-       * Neden auto-flush = true kullanıyoruz?
-       * --------------------------------------
-       * - Interaktif uygulama (chat gibi)
-       * - Tek mesaj (buffer dolmaz)
-       * - Hemen cevap istiyoruz
-       * - Kullanıcı deneyimi (UX)
-       *
-       * Neden auto-flush = false kullanılır?
-       * -------------------------------------
-       * - Çok fazla mesaj (performans kritik)
-       * - Batch işlemler (toplu gönderim)
-       * - Buffer dolunca otomatik gönderir
-       * - Network overhead azalır
+       * Neden flush'ı biz çağırıyoruz? (PrintWriter'ın auto-flush'ı yerine)
+       * --------------------------------------------------------------------
+       * - Auto-flush her println() sonrası bir network çağrısı yapar
+       * - Çok mesajda (pipelining) cevapları biriktirip tek write ile göndermek
+       *   network overhead'ını azaltır (bkz. LoopingEchoServer)
        *
        * Örnek Senaryo:
        * --------------
-       * // Auto-flush = false
-       * out.println("Line 1");  // Buffer'da
-       * out.println("Line 2");  // Buffer'da
-       * out.println("Line 3");  // Buffer'da
-       * out.flush();            // 3'ü birden gönder (1 network call)
-       *
-       * // Auto-flush = true
-       * out.println("Line 1");  // Hemen gönder (1 network call)
-       * out.println("Line 2");  // Hemen gönder (1 network call)
-       * out.println("Line 3");  // Hemen gönder (1 network call)
+       * codec.writeEcho();  // Line 1 - Buffer'da
+       * codec.writeEcho();  // Line 2 - Buffer'da
+       * codec.writeEcho();  // Line 3 - Buffer'da
+       * codec.flush();      // 3'ü birden gönder (1 network call)
        *
        * Bizim durumumuzda:
        * ------------------
        * - Tek mesaj gönderiyoruz
        * - Hemen görmek istiyoruz
-       * - Auto-flush = true ideal
+       * - writeEcho() + flush()
        */
-      PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true);
+
 
 
       /*
@@ -399,10 +367,10 @@ public class BasicEchoServer {
        *    - Thread durur
        *    - Client bağlandığında devam eder
        *
-       * 2. in.readLine()
+       * 2. codec.readLine()
        *    - Client mesaj gönderene kadar BEKLER
        *    - '\n' (newline) görene kadar okur
-       *    - Mesaj geldiğinde String döner
+       *    - Mesaj geldiğinde true döner
        *
        * 3. in.read()
        *    - Tek byte okur
@@ -415,7 +383,7 @@ public class BasicEchoServer {
        * System.out.println("After accept");     // Client bağlandıktan sonra
        *
        * System.out.println("Before readLine");
-       * String msg = in.readLine();             // ← BEKLER
+       * codec.readLine();                       // ← BEKLER
        * System.out.println("After readLine");   // Mesaj geldikten sonra
        *
        * Analoji:
@@ -459,49 +427,50 @@ public class BasicEchoServer {
        * readLine() Detayları:
        * ---------------------
        * - '\n' (newline) görene kadar okur
-       * - '\n' karakterini String'e dahil etmez
-       * - EOF (End of File) durumunda null döner
-       * - Client bağlantıyı kapatırsa null döner
+       * - '\n' (ve varsa '\r') satıra dahil edilmez
+       * - Client bağlantıyı kapatırsa (EOF) false döner
        *
        * Örnek:
        * ------
        * Client gönderir: "Hello\n"
-       * readLine() döner: "Hello"
+       * readLine() true döner, satır: "Hello"
        *
        * Client gönderir: "Hello"  (newline yok)
-       * readLine() BEKLER (newline gelene kadar)
+       * readLine() BEKLER (newline veya EOF gelene kadar)
        */
-      String message = in.readLine();
-      System.out.println("Received: " + message);
+      if (!codec.readLine()) {
+        clientSocket.close();
+        System.out.println("\nClient disconnected without a message. Server shutting down.");
+        return;
+      }
+      // Konsol için decode; echo'nun kendisi byte'larla çalışır
+      System.out.println("Received: " + codec.lineAsString());
 
       /*
        * Echo Response Oluşturma ve Gönderme
        * ------------------------------------
        *
-       * println() metodu:
-       * - String'e '\n' (newline) ekler
-       * - Auto-flush aktif olduğu için hemen gönderir
+       * writeEcho() metodu:
+       * - "Echo: " prefix'inin byte'larını (bir kere encode edildi) yazar
+       * - Satırın byte'larını olduğu gibi kopyalar
+       * - Sona '\n' (newline) ekler
        * - Client'ta readLine() ile okunabilir
        *
        * Akış:
        * -----
-       * 1. response = "Echo: Hello"
-       * 2. println(response) → "Echo: Hello\n"
-       * 3. PrintWriter → String'i byte'a çevirir
-       * 4. OutputStream → Network'e gönderir
-       * 5. Auto-flush → Hemen gönder (buffer'da bekleme)
-       * 6. Client → readLine() ile okur
+       * 1. writeEcho() → output buffer: "Echo: Hello\n" (byte array)
+       * 2. flush() → OutputStream → Network'e gönderir
+       * 3. Client → readLine() ile okur
        *
        * Örnek:
        * ------
-       * message = "Hello"
-       * response = "Echo: Hello"
+       * Okunan satır: [72, 101, 108, 108, 111] ("Hello")
        * Network'e gönderilen: "Echo: Hello\n" (byte array)
        * Client'ta okunan: "Echo: Hello" (String)
        */
-      String response = "Echo: " + message;
-      out.println(response);
-      System.out.println("Sent: " + response);
+      codec.writeEcho();
+      codec.flush();
+      System.out.println("Sent: Echo: " + codec.lineAsString());
 
       /*
        * Bağlantıyı Kapatma
@@ -523,8 +492,8 @@ public class BasicEchoServer {
        * Kapatma sırası:
        * ---------------
        * 1. clientSocket.close() → Socket kapatılır
-       * 2. in.close() → Otomatik (Socket kapatınca)
-       * 3. out.close() → Otomatik (Socket kapatınca)
+       * 2. Input stream → Otomatik (Socket kapatınca)
+       * 3. Output stream → Otomatik (Socket kapatınca)
        * 4. serverSocket.close() → try-with-resources ile otomatik
        *
        * Not: serverSocket try-with-resources ile otomatik kapanır
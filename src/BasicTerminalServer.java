@@ -1,26 +1,47 @@
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * BasicTerminalServer - A simple TCP server that executes system commands.
  *
- * <p>This server accepts a single client connection and allows the client to execute
+ * <p>This server accepts client connections and allows each client to execute
  * system commands remotely. The server reads commands from the client, executes them
  * using the system shell, and sends back the output.</p>
  *
  * <p><strong>⚠️ WARNING:</strong> This server is for educational purposes only!
- * It has NO authentication, NO encryption, and allows execution of ANY system command.
- * Only run this on localhost for learning purposes.</p>
+ * It has NO authentication, NO encryption unless TLS is configured (see below), and
+ * allows execution of ANY system command. Only run this on localhost for learning
+ * purposes.</p>
  *
  * <h3>Architecture:</h3>
  * <pre>
  * Client (nc/telnet) ←→ TCP Socket ←→ BasicTerminalServer ←→ System Shell (sh/cmd)
  * </pre>
  *
+ * <h3>Sessions:</h3>
+ * <pre>
+ * accept ─→ session thread (one per client)
+ *             ├─ reader ──→ command queue ──→ session thread runs commands in order
+ *             │                                 │
+ *             │                                 └─→ ProcessSupervisor (max live processes,
+ *             │                                     excess commands wait in FIFO order)
+ *             └─ client gone ─→ kill running process tree, drop queued commands
+ * </pre>
+ * <p>Each session has its own working directory and environment ({@code cd} and
+ * {@code export} are built-ins, see {@link TerminalSession}), so a slow command only
+ * delays its own client.</p>
+ *
  * <h3>Usage:</h3>
  * <pre>
  * 1. Compile: javac BasicTerminalServer.java
@@ -30,6 +51,66 @@ import java.net.Socket;
  * 5. Exit:    type "exit"
  * </pre>
  *
+ * <h3>Virtual-thread mode:</h3>
+ * <pre>
+ * java -Dvirtual.threads=true BasicTerminalServer
+ *   → many concurrent sessions, one virtual thread each (Java 21+)
+ * </pre>
+ *
+ * <h3>TLS:</h3>
+ * <pre>
+ * java -Dtls.keystore=server.p12 BasicTerminalServer
+ * openssl s_client -connect localhost:8003 -quiet
+ *   → SSLServerSocket with the shared {@link TlsContext}; "get" loses zero-copy
+ * </pre>
+ *
+ * <h3>Command modes:</h3>
+ * <pre>
+ * java -Dterminal.mode=fork  BasicTerminalServer   (default)
+ *   → every command is a fresh "sh -c command"; cd/export are session built-ins
+ * java -Dterminal.mode=shell BasicTerminalServer
+ *   → one long-lived "sh" per session, commands written to its stdin
+ *     (no fork per command, shell state persists; see PersistentShell)
+ * </pre>
+ * <p>{@link TerminalModeBenchmark} compares commands per second in the two modes.</p>
+ *
+ * <h3>Result cache (fork mode):</h3>
+ * <pre>
+ * java -Dterminal.cache.commands="uptime=1000;df -h=5000" BasicTerminalServer
+ *   → listed commands are answered from a short-lived cache (see CommandCache);
+ *     "cachestats" prints hit/miss counters
+ * </pre>
+ *
+ * <h3>Merged output mode:</h3>
+ * <pre>
+ * java -Dterminal.merge.stderr=true BasicTerminalServer
+ *   → stderr is redirected into stdout by the OS; one pipe, one pump
+ * </pre>
+ *
+ * <h3>Timeouts:</h3>
+ * <pre>
+ * java -Dtimeout.idle.ms=600000 -Dtimeout.write.ms=10000 BasicTerminalServer
+ *   → sessions with no command for 10 min, or whose client stops reading output
+ *     for 10 s, are disconnected (see ConnectionDeadlines); running commands
+ *     have no time limit
+ * </pre>
+ *
+ * <h3>Downloads:</h3>
+ * <pre>
+ * $ get &lt;path&gt; [offset]
+ *   → "OK &lt;length&gt;" then the raw bytes, sent with FileChannel.transferTo
+ *     (sendfile on Linux); offset resumes a cut download. Unlike "cat" there is
+ *     no process and no re-encoding, so binary files arrive intact
+ * </pre>
+ *
+ * <h3>Graceful shutdown:</h3>
+ * <pre>
+ * kill -TERM &lt;pid&gt;   (or Ctrl+C; -Dshutdown.drain.ms=10000)
+ *   → the listener closes, each session finishes the commands it already
+ *     received, says goodbye and disconnects; processes still running when
+ *     the drain window ends are killed (see ServerLifecycle)
+ * </pre>
+ *
  * @author Gokhan D.
  * @version 1.0
  * @since 2026-02-05
@@ -41,23 +122,69 @@ public class BasicTerminalServer {
    */
   private static final int PORT = 8003;
 
+  /**
+   * Virtual-thread mode ({@code -Dvirtual.threads=true}).
+   *
+   * <p>When enabled, each session runs on its own virtual thread instead of a platform
+   * thread.</p>
+   *
+   * @see VirtualThreadAcceptor
+   */
+  private static final boolean VIRTUAL_THREADS = Boolean.getBoolean("virtual.threads");
+
+  /**
+   * Command mode ({@code -Dterminal.mode=fork|shell}): {@code true} for one persistent
+   * shell per session, {@code false} for a new process per command.
+   */
+  private static final boolean SHELL_MODE = parseMode(System.getProperty("terminal.mode", "fork"));
+
+  /**
+   * Merged output mode ({@code -Dterminal.merge.stderr=true}).
+   *
+   * <p>When enabled, the process's stderr is redirected into its stdout
+   * ({@link ProcessBuilder#redirectErrorStream(boolean)}), so both arrive in the
+   * order the command wrote them and only one pump is needed.</p>
+   */
+  private static final boolean MERGE_STDERR = Boolean.getBoolean("terminal.merge.stderr");
+
+  /**
+   * Size of the chunks copied from a process pipe to the socket.
+   */
+  private static final int PUMP_CHUNK_SIZE = 8 * 1024;
+
+  /**
+   * Commands a client may send ahead while the current one runs. When the queue is
+   * full the reader stops reading and TCP flow control slows the client down.
+   */
+  private static final int COMMAND_QUEUE_CAPACITY = 64;
+
+  /**
+   * Queued by the reader when the server drains, after every command it received.
+   */
+  private static final QueuedCommand DRAIN = new QueuedCommand(null);
+
+  /**
+   * One entry in a session's command queue: a command line, or {@link #DRAIN}.
+   */
+  private record QueuedCommand(String line) { }
 
   /**
    * Main entry point for the BasicTerminalServer.
    *
-   * <p>This method creates a ServerSocket, waits for a single client connection,
-   * and then enters a command processing loop. Each command received from the client
-   * is executed using the system shell, and the output is sent back to the client.</p>
+   * <p>This method creates a ServerSocket and accepts clients in a loop. Each client
+   * gets its own session thread that runs a command processing loop. Each command
+   * received from the client is executed using the system shell, and the output is
+   * sent back to the client.</p>
    *
    * <h3>Flow:</h3>
    * <ol>
    *   <li>Create ServerSocket on PORT 8003</li>
    *   <li>Wait for client connection (blocking)</li>
-   *   <li>Setup input/output streams</li>
-   *   <li>Send welcome message</li>
-   *   <li>Read commands in a loop</li>
-   *   <li>Execute each command and send output</li>
-   *   <li>Close connection on "exit" command</li>
+   *   <li>Start a session thread for the client, go back to accept</li>
+   *   <li>Session: setup input/output streams, send welcome message</li>
+   *   <li>Session: read commands in a loop</li>
+   *   <li>Session: execute each command and send output</li>
+   *   <li>Session: close connection on "exit" command</li>
    * </ol>
    *
    * @param args command line arguments (not used)
@@ -66,22 +193,111 @@ public class BasicTerminalServer {
     System.out.println("⚠️ Terminal Server - Only for Local!");
     System.out.println("Starting Terminal Server on port: " + PORT + "...\n");
 
+    // Parse the cache configuration up front so a bad value fails at startup
+    if (CommandCache.DEFAULT != null) {
+      System.out.println("Command cache enabled: " + CommandCache.DEFAULT.stats());
+    }
+
+    // SIGTERM / Ctrl+C: let sessions finish what they received, then don't leave
+    // commands still running as orphans
+    ServerLifecycle.DEFAULT.onStop(ProcessSupervisor.DEFAULT::killAll);
+    ServerLifecycle.DEFAULT.installShutdownHook();
+
+    Metrics.DEFAULT.gauge("terminal_processes_live", "Running command processes.",
+        ProcessSupervisor.DEFAULT::liveCount);
+    Metrics.DEFAULT.gauge("terminal_processes_queued", "Commands waiting for a process slot.",
+        ProcessSupervisor.DEFAULT::queuedCount);
+    try {
+      Metrics.startEndpoint();
+    } catch (IOException e) {
+      System.err.println("Metrics endpoint error: " + e.getMessage());
+    }
+
+    if (VIRTUAL_THREADS) {
+      try {
+        VirtualThreadAcceptor.serve("Terminal Server", PORT, BasicTerminalServer::serveSession,
+            TlsContext.DEFAULT);
+      } catch (IOException e) {
+        System.err.println("Server error: " + e.getMessage());
+        e.printStackTrace();
+      }
+      return;
+    }
 
-    try (ServerSocket serverSocket = new ServerSocket(PORT)) {
+    // Opened through a channel so accepted sockets have one: "get" sends files with
+    // FileChannel.transferTo (sendfile). The streams work as before in blocking mode.
+    // Over TLS the bytes must be encrypted anyway, so "get" copies through the stream.
+    try (ServerSocket serverSocket = TlsContext.ENABLED
+        ? TlsContext.DEFAULT.serverSocket(PORT, 0)
+        : ServerSocketChannel.open().socket()) {
+      if (!serverSocket.isBound()) {
+        serverSocket.bind(new InetSocketAddress(PORT));
+      }
+      ServerLifecycle.DEFAULT.start(serverSocket);
 
       System.out.println("Server Listening on port " + PORT);
-      System.out.println("Waiting for client connection... \n");
+      System.out.println("Waiting for client connections... \n");
 
-      // Blocking call - waits until a client connects
-      Socket clientSocket = serverSocket.accept();
-      System.out.println("Accepted connection from client: " + clientSocket.getInetAddress());
+      int sessions = 0;
+      while (true) {
+        // Blocking call - waits until a client connects
+        Socket clientSocket;
+        try {
+          clientSocket = serverSocket.accept();
+        } catch (IOException e) {
+          if (!ServerLifecycle.DEFAULT.isRunning()) {
+            Log.info("Terminal Server stopped accepting");
+            return;
+          }
+          throw e;
+        }
+        Thread.ofPlatform()
+            .name("terminal-session-" + (++sessions))
+            .start(() -> serveSession(clientSocket));
+      }
+
+    } catch (IOException e) {
+      System.err.println("Server error: " + e.getMessage());
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Runs one terminal session: banner, command loop, and "exit" handling.
+   *
+   * <p>The calling thread is the session thread and runs the commands. A separate
+   * reader thread reads command lines into a queue, so the session notices a
+   * disconnect even while a command that prints nothing is running, and the client
+   * can type ahead.</p>
+   *
+   * @param clientSocket the accepted client connection; closed when the session ends
+   */
+  private static void serveSession(Socket clientSocket) {
+    Log.info("Accepted connection from client: %s", clientSocket.getInetAddress());
+    Metrics.DEFAULT.connectionOpened();
+    if (TlsContext.ENABLED) {
+      TlsContext.DEFAULT.track(clientSocket);
+    }
+
+    Thread reader = null;
+    TerminalSession openSession = null;
+    ConnectionDeadlines deadlines = ConnectionDeadlines.watch(clientSocket,
+        "terminal client " + clientSocket.getRemoteSocketAddress());
+    ServerLifecycle.Connection tracked = ServerLifecycle.DEFAULT.register(clientSocket);
+    ConnectionRegistry.Entry entry = ConnectionRegistry.DEFAULT.register("terminal",
+        clientSocket.getInetAddress(), clientSocket.getPort(), clientSocket);
+    try (Socket socket = clientSocket) {
 
       // Setup input stream to read commands from client
       BufferedReader in = new BufferedReader(
-          new InputStreamReader(clientSocket.getInputStream()));
+          new InputStreamReader(socket.getInputStream()));
 
-      // Setup output stream to send results to client (auto-flush enabled)
-      PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true);
+      // Setup output stream to send results to client.
+      // Auto-flush is OFF: output is batched and flushed explicitly before every
+      // blocking read (banner, prompt) - one write per burst instead of one per line.
+      TerminalOutput out = new TerminalOutput(socket, deadlines, entry);
+      TerminalSession session = new TerminalSession(out, ProcessSupervisor.DEFAULT);
+      openSession = session;
 
       // Send welcome banner to client
       out.println("=================================");
@@ -89,23 +305,44 @@ public class BasicTerminalServer {
       out.println("  Type 'exit' to quit");
       out.println("=================================");
       out.println();
+      out.flush();
+
+      BlockingQueue<QueuedCommand> commands = new ArrayBlockingQueue<>(COMMAND_QUEUE_CAPACITY);
+      reader = Thread.ofVirtual()
+          .name("terminal-reader")
+          .start(() -> readCommands(in, commands, session, entry));
 
       // Command processing loop
-      String command;
-      while ((command = in.readLine()) != null) {
+      while (true) {
+        deadlines.idle();  // a partial line also counts as idle: no command yet
+        QueuedCommand next = commands.take();
+        // Server is draining: every command received before it has been run
+        if (next == DRAIN) {
+          out.println("Server is shutting down.");
+          out.println("GoodBye!");
+          out.flush();
+          break;
+        }
+
+        String command = next.line();
+        deadlines.busy();  // commands may run as long as they like
+        long startedAt = Metrics.now();
 
-        System.out.println("Received command: " + command);
+        Log.info("Received command: %s", command);  // audit trail; -Dlog.level=warn hides it
 
         // Check for exit command
         if (command.equalsIgnoreCase("exit")) {
           out.println("Terminal Server shutting down.");
           out.println("GoodBye!");
+          out.flush();
           break;
         }
 
         // Execute the command and send output to client
         try {
-          executeCommand(command, out);
+          runCommand(command, session, SHELL_MODE);
+        } catch (EOFException e) {
+          throw e;  // a download came up short: the client can no longer find the prompt
         } catch (Exception e) {
           out.println("ERROR: " + e.getMessage());
         }
@@ -113,17 +350,97 @@ public class BasicTerminalServer {
         // Send prompt for next command
         out.println();
         out.println("$ "); // Prompt
+        out.flush();
+        Metrics.DEFAULT.commandServed(startedAt);
       }
 
-
+    } catch (InterruptedException e) {
+      Log.info("Client disconnected: %s", clientSocket.getInetAddress());
     } catch (IOException e) {
-      System.err.println("Server error: " + e.getMessage());
-      e.printStackTrace();
+      Log.warn("Session error (%s): %s", clientSocket.getInetAddress(), e.getMessage());
+    } finally {
+      if (openSession != null) {
+        openSession.close();
+      }
+      if (reader != null) {
+        reader.interrupt();
+      }
+      deadlines.stop();
+      tracked.close();
+      ConnectionRegistry.DEFAULT.unregister(entry);
+      Metrics.DEFAULT.connectionClosed();
+    }
+  }
+
+  /**
+   * Reader side of a session: queues command lines until "exit", and reports a
+   * disconnect to the session. End of stream while the server drains is not a
+   * disconnect: the lifecycle shut the input down, so the reader queues {@link #DRAIN}
+   * and the session finishes its queued commands first.
+   *
+   * @param in       the client's input
+   * @param commands the session's command queue
+   * @param session  the session to disconnect at end of stream
+   * @param entry    the connection's registry entry, for its byte and command counts
+   */
+  private static void readCommands(BufferedReader in, BlockingQueue<QueuedCommand> commands,
+      TerminalSession session, ConnectionRegistry.Entry entry) {
+    long journalId = TrafficJournal.ENABLED ? TrafficJournal.nextConnectionId() : 0;
+    try {
+      String command;
+      while ((command = in.readLine()) != null) {
+        Metrics.DEFAULT.bytesIn(command.length() + 1);  // chars, close enough for commands
+        entry.received(command.length() + 1);
+        entry.messages(1);
+        if (TrafficJournal.ENABLED) {
+          // Commands are already Strings here; re-encoding one per command is noise
+          // next to the process it starts
+          byte[] line = (command + "\n").getBytes(StandardCharsets.UTF_8);
+          TrafficJournal.DEFAULT.record(journalId, line, 0, line.length);
+        }
+        commands.put(new QueuedCommand(command));
+        if (command.equalsIgnoreCase("exit")) {
+          return;
+        }
+      }
+    } catch (IOException | InterruptedException e) {
+      // Socket closed or session over; either way there is nothing more to read
+    }
+    if (!ServerLifecycle.DEFAULT.isRunning() && commands.offer(DRAIN)) {
+      return;
+    }
+    session.disconnect();
+  }
+
+  /**
+   * Runs one client command in the given mode.
+   *
+   * @param command   the command line
+   * @param session   the session to run it in
+   * @param shellMode {@code true} to run it in the session's persistent shell,
+   *                  {@code false} to fork a new process
+   * @throws IOException if an I/O error occurs while relaying output
+   */
+  static void runCommand(String command, TerminalSession session, boolean shellMode)
+      throws IOException {
+    CommandCache cache = CommandCache.DEFAULT;
+    if (command.equals("get") || command.startsWith("get ")) {
+      session.get(command.substring(3));
+    } else if (cache != null && command.equals("cachestats")) {
+      session.out().println(cache.stats());
+    } else if (shellMode) {
+      executeInShell(command, session);
+    } else if (session.runBuiltin(command)) {
+      return;
+    } else if (cache != null && cache.isCacheable(command)) {
+      executeCached(command, session, cache);
+    } else {
+      executeCommand(command, session);
     }
   }
 
   /**
-   * Executes a system command and sends the output to the client.
+   * Executes a system command and streams its output to the client.
    *
    * <p>This method uses {@link ProcessBuilder} to execute commands through the system shell.
    * On Windows, it uses "cmd.exe /c", and on Linux/Mac, it uses "sh -c".</p>
@@ -136,17 +453,20 @@ public class BasicTerminalServer {
    *     │
    *     ├─→ ProcessBuilder.start()  → Creates "sh -c ls"
    *     │
-   *     ├─→ getInputStream()        ← Process stdout (normal output)
-   *     │                             "file1.txt"
-   *     │                             "file2.txt"
+   *     ├─→ stderr pump (virtual)   ← Process stderr ─┐
+   *     │                                              ├─→ socket (raw chunks)
+   *     ├─→ stdout pump (this)      ← Process stdout ─┘
    *     │
-   *     ├─→ getErrorStream()        ← Process stderr (error output)
-   *     │                             "ls: cannot access..."
-   *     │
-   *     └─→ waitFor()               ← Wait for process to finish
+   *     └─→ join pump, waitFor()    ← Wait for process to finish
    *                                   Exit code: 0 (success) or non-zero (error)
    * </pre>
    *
+   * <h3>Why two pumps:</h3>
+   * <p>Each pipe has a small kernel buffer (64 KB on Linux). Reading stdout to the end
+   * and only then stderr deadlocks as soon as a command writes more than that to
+   * stderr: the command blocks writing stderr, so it never closes stdout, so we never
+   * get to stderr. Pumping both at the same time (or merging them) removes the cycle.</p>
+   *
    * <h3>Stream Perspective:</h3>
    * <ul>
    *   <li><strong>process.getInputStream()</strong> - Reads the process's stdout
@@ -154,63 +474,243 @@ public class BasicTerminalServer {
    *   <li><strong>process.getErrorStream()</strong> - Reads the process's stderr
    *       (error output from the command)</li>
    *   <li><strong>process.getOutputStream()</strong> - Writes to the process's stdin
-   *       (not used in this implementation)</li>
+   *       (closed right away, so commands that read stdin see EOF instead of hanging)</li>
    * </ul>
    *
+   * <p>Bytes are copied as they come, without decoding into lines, so binary output and
+   * very long lines pass through unchanged and memory stays at one chunk per pump. A
+   * slow client blocks the socket write, which stops the pump, which fills the pipe,
+   * which pauses the command: backpressure all the way to the process.</p>
+   *
    * @param command the system command to execute (e.g., "ls -la", "pwd", "whoami")
-   * @param out the PrintWriter to send command output to the client
-   * @throws IOException if an I/O error occurs while reading process output
+   * @param session the session the command runs in (directory, environment, output)
+   * @throws IOException if an I/O error occurs while relaying process output
    *
    * @see ProcessBuilder
    * @see Process#getInputStream()
    * @see Process#getErrorStream()
    * @see Process#waitFor()
    */
-  private static void executeCommand(String command, PrintWriter out) throws IOException {
-    // Detect operating system
-    String os = System.getProperty("os.name").toLowerCase();
-    ProcessBuilder processBuilder;
+  private static void executeCommand(String command, TerminalSession session)
+      throws IOException {
+    TerminalOutput out = session.out();
 
-    if (os.contains("win")) {
-      // Windows: use cmd.exe to execute command
-      processBuilder = new ProcessBuilder("cmd.exe", "/c", command);
-    } else {
-      // Linux/Mac: use sh to execute command
-      processBuilder = new ProcessBuilder("sh", "-c", command);
+    ProcessBuilder processBuilder = shellCommand(command);
+    processBuilder.redirectErrorStream(MERGE_STDERR);
+
+    // Start the process through the supervisor (may wait for a free slot);
+    // nothing is ever written to its stdin
+    Process process;
+    try {
+      process = session.start(processBuilder);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      out.println("Command interrupted!");
+      return;
+    }
+
+    // Pump stderr on its own (virtual) thread unless it is merged into stdout
+    Thread stderrPump = null;
+    IOException[] stderrFailure = new IOException[1];
+    if (!MERGE_STDERR) {
+      stderrPump = Thread.ofVirtual().name("stderr-pump").start(() -> {
+        try {
+          pump(process.getErrorStream(), out);
+        } catch (IOException e) {
+          stderrFailure[0] = e;
+        }
+      });
     }
 
-    // Start the process
-    Process process = processBuilder.start();
+    try {
+      process.getOutputStream().close();
 
-    // Read normal output from process (stdout)
-    // Note: getInputStream() reads the PROCESS's OUTPUT (stdout)
-    BufferedReader processOutput = new BufferedReader(
-        new InputStreamReader(process.getInputStream()));
+      // Pump stdout on this thread
+      // Note: getInputStream() reads the PROCESS's OUTPUT (stdout)
+      pump(process.getInputStream(), out);
 
-    // Read error output from process (stderr)
-    BufferedReader errorOutput = new BufferedReader(
-        new InputStreamReader(process.getErrorStream()));
+      if (stderrPump != null) {
+        stderrPump.join();
+        if (stderrFailure[0] != null) {
+          throw stderrFailure[0];
+        }
+      }
 
-    // Send normal output to client
-    String line;
-    while ((line = processOutput.readLine()) != null) {
-      out.println(line);
+      // Wait for process to complete and check exit code
+      int exitCode = process.waitFor();
+      if (exitCode != 0) {
+        out.println("[Process exited with code: " + exitCode + "]");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      out.println("Command interrupted!");
+    } finally {
+      // Client gone or interrupted: don't leave the command (or its children) running
+      session.finished(process);
     }
+  }
 
-    // Send error output to client
-    while ((line = errorOutput.readLine()) != null) {
-      out.println("ERROR: " + line);
+  /**
+   * Answers a cacheable command from {@link CommandCache}, running it only on a miss.
+   *
+   * <p>A cached result is replayed as stdout, then stderr, then the exit code line, so
+   * the interleaving of the two streams is not preserved. The run that fills the cache is
+   * shared with other sessions waiting for the same key, so it is not killed when this
+   * client disconnects.</p>
+   *
+   * @param command a command listed as cacheable
+   * @param session the session the command runs in
+   * @param cache   the cache
+   * @throws IOException if the command cannot be run or the client is gone
+   */
+  private static void executeCached(String command, TerminalSession session,
+      CommandCache cache) throws IOException {
+    TerminalOutput out = session.out();
+    CommandCache.Result result;
+    try {
+      result = cache.get(
+          new CommandCache.Key(command, session.workingDirectory().toString(),
+              session.environment()),
+          () -> capture(command, session));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      out.println("Command interrupted!");
+      return;
+    } catch (IOException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException(e);
     }
 
-    // Wait for process to complete and check exit code
+    out.write(result.stdout(), 0, result.stdout().length);
+    out.write(result.stderr(), 0, result.stderr().length);
+    if (result.exitCode() != 0) {
+      out.println("[Process exited with code: " + result.exitCode() + "]");
+    }
+  }
+
+  /**
+   * Runs {@code command} and collects its stdout, stderr and exit code in memory.
+   */
+  private static CommandCache.Result capture(String command, TerminalSession session)
+      throws IOException, InterruptedException {
+    Process process = session.startDetached(shellCommand(command));
     try {
-      int exitCode = process.waitFor();
-      if (exitCode != 0) {
+      process.getOutputStream().close();
+
+      ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+      Thread stderrPump = Thread.ofVirtual().name("stderr-capture").start(() -> {
+        try (InputStream in = process.getErrorStream()) {
+          in.transferTo(stderr);
+        } catch (IOException e) {
+          // Process killed; keep what was read
+        }
+      });
+
+      byte[] stdout;
+      try (InputStream in = process.getInputStream()) {
+        stdout = in.readAllBytes();
+      }
+      stderrPump.join();
+      return new CommandCache.Result(stdout, stderr.toByteArray(), process.waitFor());
+    } finally {
+      session.finished(process);
+    }
+  }
+
+  /**
+   * Runs a command in the session's persistent shell, starting the shell first if the
+   * session has none (first command, or the previous shell ended).
+   *
+   * <p>Output is streamed exactly as in {@link #executeCommand(String, TerminalSession)};
+   * only the process handling differs. The command still takes a supervisor slot while
+   * it runs, so the cap on concurrently running commands holds in both modes.</p>
+   *
+   * @param command the command line, passed to the shell unchanged
+   * @param session the session whose shell runs it
+   * @throws IOException if an I/O error occurs while relaying output
+   */
+  private static void executeInShell(String command, TerminalSession session)
+      throws IOException {
+    TerminalOutput out = session.out();
+
+    try {
+      session.acquireSlot();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      out.println("Command interrupted!");
+      return;
+    }
+    try {
+      PersistentShell shell = session.shell();
+      if (shell == null) {
+        ProcessBuilder processBuilder = new ProcessBuilder("sh");
+        processBuilder.redirectErrorStream(MERGE_STDERR);
+        shell = session.startShell(processBuilder, MERGE_STDERR);
+      }
+
+      int exitCode = shell.run(command, out);
+      if (exitCode == PersistentShell.SHELL_EXITED) {
+        out.println("[Shell exited; a new shell starts with the next command]");
+      } else if (exitCode != 0) {
         out.println("[Process exited with code: " + exitCode + "]");
       }
     } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
       out.println("Command interrupted!");
+    } finally {
+      session.releaseSlot();
+    }
+  }
+
+  private static boolean parseMode(String mode) {
+    return switch (mode.toLowerCase()) {
+      case "fork" -> false;
+      case "shell" -> true;
+      default -> throw new IllegalArgumentException(
+          "Unknown terminal mode: " + mode + " (expected fork|shell)");
+    };
+  }
+
+  /**
+   * Builds a one-shot shell process for {@code command}.
+   *
+   * @param command the command line
+   * @return "cmd.exe /c command" on Windows, "sh -c command" elsewhere
+   */
+  private static ProcessBuilder shellCommand(String command) {
+    // Detect operating system
+    String os = System.getProperty("os.name").toLowerCase();
+
+    if (os.contains("win")) {
+      // Windows: use cmd.exe to execute command
+      return new ProcessBuilder("cmd.exe", "/c", command);
+    }
+    // Linux/Mac: use sh to execute command
+    return new ProcessBuilder("sh", "-c", command);
+  }
+
+  /**
+   * Copies {@code source} to {@code out} in raw chunks until EOF.
+   *
+   * <p>After each chunk the output is flushed if the pipe has nothing more ready or the
+   * latency bound has passed (see {@link TerminalOutput#flushIfIdle(InputStream)}), so a
+   * burst goes out as few large writes and a command that prints and then sleeps is
+   * still shown immediately.</p>
+   *
+   * @param source a process stdout or stderr pipe
+   * @param out    the session output
+   * @throws IOException if the pipe or the client fails
+   */
+  private static void pump(InputStream source, TerminalOutput out) throws IOException {
+    byte[] chunk = new byte[PUMP_CHUNK_SIZE];
+    try (source) {
+      int n;
+      while ((n = source.read(chunk)) != -1) {
+        out.write(chunk, 0, n);
+        out.flushIfIdle(source);
+      }
     }
   }
 
-}
\ No newline at end of file
+}
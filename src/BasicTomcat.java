@@ -1 +1,252 @@
-public class BasicTomcat {}
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BasicTomcat - Thread Pool ile Çoklu Client (Tomcat benzeri yapı)
+ *
+ * <p><b>SequentialEchoServer'dan Farkı:</b>
+ * <ul>
+ *   <li>Acceptor thread sadece accept() yapar, işi worker pool'a verir</li>
+ *   <li>Sabit sayıda worker thread (sınırsız thread yok → OOM/thrashing yok)</li>
+ *   <li>Sınırlı (bounded) iş kuyruğu: worker'lar meşgulken bağlantılar burada bekler</li>
+ *   <li>Kuyruk dolunca rejection policy devreye girer (backpressure)</li>
+ *   <li>Aktif worker / kuyruk derinliği periyodik olarak loglanır</li>
+ * </ul>
+ *
+ * <p><b>Mimari:</b>
+ * <pre>
+ *   Client ─┐                          ┌─→ worker-1 ─→ EchoHandler
+ *   Client ─┼─→ acceptor ─→ [queue] ───┼─→ worker-2 ─→ EchoHandler
+ *   Client ─┘   (accept)    (bounded)  └─→ worker-N ─→ EchoHandler
+ *                               │
+ *                          dolu ise: BUSY (reddet) veya BLOCK (acceptor bekler)
+ * </pre>
+ *
+ * <p><b>Rejection Policy:</b>
+ * <ul>
+ *   <li><b>busy</b>: Client'a "Server busy" satırı gönderilir, bağlantı kapatılır.
+ *       Hızlı fail, client tekrar deneyebilir.</li>
+ *   <li><b>block</b>: Acceptor kuyrukta yer açılana kadar bekler. Yeni bağlantılar
+ *       kernel backlog'unda birikir (TCP seviyesinde backpressure).</li>
+ * </ul>
+ *
+ * <p><b>Ayarlar (system property):</b>
+ * <pre>
+ *   -Dworkers=16             worker thread sayısı (varsayılan: CPU sayısı * 2)
+ *   -Dqueue.capacity=100     bekleyen bağlantı kuyruğu (varsayılan 100)
+ *   -Drejection=busy|block   kuyruk dolunca ne olacak (varsayılan busy)
+ *   -Dbacklog=128            kernel accept backlog (varsayılan 128)
+ *   -Dstats.interval.ms=5000 pool istatistik log aralığı (0 = kapalı)
+ * </pre>
+ *
+ * <p><b>Test Senaryosu:</b>
+ * <pre>
+ *   java -Dworkers=2 -Dqueue.capacity=1 BasicTomcat
+ *   nc localhost 8005   (worker-1)
+ *   nc localhost 8005   (worker-2)
+ *   nc localhost 8005   (kuyrukta bekler)
+ *   nc localhost 8005   → "Server busy, try again later"
+ * </pre>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class BasicTomcat {
+
+  private static final int PORT = 8005;
+
+  private static final int WORKERS =
+      Integer.getInteger("workers", Runtime.getRuntime().availableProcessors() * 2);
+
+  private static final int QUEUE_CAPACITY = Integer.getInteger("queue.capacity", 100);
+
+  private static final String REJECTION = System.getProperty("rejection", "busy");
+
+  private static final int BACKLOG = Integer.getInteger("backlog", 128);
+
+  private static final long STATS_INTERVAL_MS = Long.getLong("stats.interval.ms", 5000);
+
+  /**
+   * Reddedilen bağlantı sayısı (sadece busy policy'de artar).
+   */
+  private static final LongAdder rejected = new LongAdder();
+
+  /**
+   * Server'ın ana giriş noktası.
+   *
+   * <p><b>Akış:</b>
+   * <ol>
+   *   <li>Worker pool'u oluştur (sabit boyut + bounded queue + rejection policy)</li>
+   *   <li>ServerSocket'i bind et</li>
+   *   <li>LOOP: accept → {@link EchoHandler} olarak pool'a ver</li>
+   * </ol>
+   *
+   * @param args Komut satırı argümanları (kullanılmıyor)
+   */
+  public static void main(String[] args) {
+
+    System.out.println("Multiple Clients, Thread Pool (Tomcat-like)");
+    System.out.println("Starting TCP Server on port: " + PORT + "...\n");
+
+    ThreadPoolExecutor workers = newWorkerPool();
+    ScheduledExecutorService stats = startStatsLogger(workers);
+
+    /*
+     * SIGTERM: accept durur, kuyruktaki ve çalışan handler'lar drain süresi
+     * boyunca bitirilir; süre dolunca hâlâ bekleyen işler atılır.
+     */
+    ServerLifecycle.DEFAULT.onStop(workers::shutdownNow);
+    ServerLifecycle.DEFAULT.installShutdownHook();
+
+    try (ServerSocket serverSocket = new ServerSocket()) {
+
+      Metrics.startEndpoint();
+      serverSocket.setReuseAddress(true);
+      serverSocket.bind(new InetSocketAddress(PORT), BACKLOG);
+      ServerLifecycle.DEFAULT.start(serverSocket);
+
+      System.out.printf("Server Listening on port %d (workers=%d, queue=%d, rejection=%s)%n%n",
+          PORT, WORKERS, QUEUE_CAPACITY, REJECTION);
+
+      while (true) {
+        Socket clientSocket;
+        try {
+          clientSocket = serverSocket.accept();
+        } catch (IOException ex) {
+          if (!ServerLifecycle.DEFAULT.isRunning()) {
+            Log.info("BasicTomcat stopped accepting");
+            return;
+          }
+          throw ex;
+        }
+        clientSocket.setTcpNoDelay(true);
+
+        /*
+         * execute() ya hemen bir worker'a verir, ya kuyruğa koyar,
+         * ya da kuyruk doluysa rejection handler'ı çağırır.
+         * BLOCK policy'de bu çağrı yer açılana kadar bloklanır.
+         */
+        workers.execute(new EchoHandler(clientSocket));
+      }
+
+    } catch (IOException ex) {
+      System.err.println("Server error: " + ex.getMessage());
+      ex.printStackTrace();
+    } finally {
+      stats.shutdownNow();
+      workers.shutdown();  // kabul edilmiş bağlantılar bitirilir (bkz. onStop)
+    }
+  }
+
+  /**
+   * Sabit boyutlu worker pool oluşturur.
+   *
+   * <p>core = max = WORKERS: Thread sayısı asla WORKERS'ı geçmez. Kuyruk
+   * {@link ArrayBlockingQueue} olduğu için bekleyen iş sayısı da sınırlıdır.
+   *
+   * @return yapılandırılmış executor
+   */
+  private static ThreadPoolExecutor newWorkerPool() {
+    RejectedExecutionHandler policy = switch (REJECTION) {
+      case "busy" -> new BusyPolicy();
+      case "block" -> new BlockPolicy();
+      default -> throw new IllegalArgumentException(
+          "Unknown rejection policy: " + REJECTION + " (expected busy|block)");
+    };
+
+    return new ThreadPoolExecutor(
+        WORKERS, WORKERS,
+        0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+        new WorkerThreadFactory(),
+        policy);
+  }
+
+  /**
+   * Pool durumunu (aktif worker, kuyruk derinliği, tamamlanan, reddedilen)
+   * periyodik olarak loglar. Kutuyu boyutlandırmak için gereken sayılar bunlar.
+   *
+   * @param workers izlenecek pool
+   * @return log scheduler'ı (kapatmak için)
+   */
+  private static ScheduledExecutorService startStatsLogger(ThreadPoolExecutor workers) {
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "pool-stats");
+      t.setDaemon(true);
+      return t;
+    });
+    if (STATS_INTERVAL_MS > 0) {
+      scheduler.scheduleAtFixedRate(() -> System.out.printf(
+              "[pool] active=%d/%d queued=%d/%d completed=%d rejected=%d%n",
+              workers.getActiveCount(), workers.getMaximumPoolSize(),
+              workers.getQueue().size(), QUEUE_CAPACITY,
+              workers.getCompletedTaskCount(), rejected.sum()),
+          STATS_INTERVAL_MS, STATS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+    return scheduler;
+  }
+
+  /**
+   * BUSY policy: Kuyruk doluysa client'a haber ver ve bağlantıyı kapat.
+   */
+  private static final class BusyPolicy implements RejectedExecutionHandler {
+    @Override
+    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+      rejected.increment();
+      if (r instanceof EchoHandler handler) {
+        handler.reject("Server busy, try again later");
+      }
+    }
+  }
+
+  /**
+   * BLOCK policy: Kuyrukta yer açılana kadar acceptor thread'i beklet.
+   *
+   * <p>Acceptor beklerken accept() çağrılmaz, yeni bağlantılar kernel backlog'unda
+   * birikir. Backlog da dolunca client'ların connect()'i yavaşlar/başarısız olur.
+   */
+  private static final class BlockPolicy implements RejectedExecutionHandler {
+    @Override
+    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+      if (executor.isShutdown()) {
+        if (r instanceof EchoHandler handler) {
+          handler.reject("Server shutting down");
+        }
+        return;
+      }
+      try {
+        executor.getQueue().put(r);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        if (r instanceof EchoHandler handler) {
+          handler.reject("Server shutting down");
+        }
+      }
+    }
+  }
+
+  /**
+   * Worker thread'lerine okunabilir isim verir (jstack / log için).
+   */
+  private static final class WorkerThreadFactory implements ThreadFactory {
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable r) {
+      return new Thread(r, "worker-" + counter.incrementAndGet());
+    }
+  }
+
+}
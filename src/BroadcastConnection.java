@@ -0,0 +1,346 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BroadcastConnection - Per-connection state of the room broadcast protocol.
+ *
+ * <p>Every line a client sends is published to its current {@link Room}, the sender
+ * included, as {@code "[room] user-N: line"}. The message is encoded once into a
+ * {@link SharedPayload}; each member's {@link OutboundQueue} receives a view of it.</p>
+ * <pre>
+ * /join &lt;room&gt;   leave the current room, join another ("lobby" at connect)
+ * quit           close the connection
+ * anything else  broadcast to the room
+ * </pre>
+ *
+ * <h3>Slow subscribers:</h3>
+ * <p>A member whose unsent output would exceed {@code -Dbroadcast.queue.bytes} (default
+ * 256 KB) does not hold up the room. With {@code -Dbroadcast.slow=drop} (default) the
+ * message is skipped for that member only; with {@code disconnect} the member is
+ * closed. Both are counted ({@link #DROPPED}, {@link #DISCONNECTED}). The close is
+ * deferred to the member's next flush: the member may be the publisher itself, still in
+ * the middle of its read buffer.</p>
+ *
+ * <p>Reading, framing and flushing follow {@link EchoConnection}. Every method runs on the
+ * owning {@link EventLoop}.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class BroadcastConnection implements LoopConnection {
+
+  /**
+   * Most unsent bytes a member may have before new messages skip it.
+   */
+  static final int QUEUE_LIMIT = Integer.getInteger("broadcast.queue.bytes", 256 * 1024);
+
+  /**
+   * Slow-subscriber policy: {@code true} to disconnect, {@code false} to drop messages.
+   */
+  static final boolean DISCONNECT_SLOW = parsePolicy(System.getProperty("broadcast.slow", "drop"));
+
+  /**
+   * Messages skipped because a member's queue was full.
+   */
+  static final LongAdder DROPPED = new LongAdder();
+
+  /**
+   * Members closed because their queue was full ({@code -Dbroadcast.slow=disconnect}).
+   */
+  static final LongAdder DISCONNECTED = new LongAdder();
+
+  private static final byte[] JOIN = "/join ".getBytes(StandardCharsets.US_ASCII);
+
+  private static final int INITIAL_BUFFER_SIZE = 4096;
+
+  private static final BufferPool POOL = BufferPool.DEFAULT;
+
+  private final EventLoop loop;
+  private final int loopIndex;
+  private final SocketChannel channel;
+  private final SelectionKey key;
+  private final Runnable onClose;
+  private final Room.Directory rooms;
+  private final String user;
+  private final OutboundQueue outbound = new OutboundQueue();
+  private final ConnectionRegistry.Entry session;
+
+  private Room room;
+
+  /**
+   * {@code "[room] user-N: "}, encoded once per join.
+   */
+  private byte[] prefix;
+
+  private ByteBuffer readBuffer;
+  private boolean closing;
+  private boolean flushScheduled;
+  private boolean closed;
+
+  /**
+   * Creates the state for a registered channel and joins the lobby.
+   *
+   * @param loop      the owning loop
+   * @param loopIndex the loop's index in every {@link Room}
+   * @param channel   the non-blocking client channel
+   * @param key       its registration with the loop's selector
+   * @param onClose   loop bookkeeping, run once on close
+   * @param rooms     the server's rooms
+   * @param user      the name shown in front of this member's messages
+   */
+  BroadcastConnection(EventLoop loop, int loopIndex, SocketChannel channel, SelectionKey key,
+      Runnable onClose, Room.Directory rooms, String user) {
+    this.loop = loop;
+    this.loopIndex = loopIndex;
+    this.channel = channel;
+    this.key = key;
+    this.onClose = onClose;
+    this.rooms = rooms;
+    this.user = user;
+    this.session = ConnectionRegistry.DEFAULT.register("broadcast",
+        channel.socket().getInetAddress(), channel.socket().getPort(),
+        () -> loop.execute(this::close));
+    Metrics.DEFAULT.connectionOpened();
+    join("lobby");
+  }
+
+  int loopIndex() {
+    return loopIndex;
+  }
+
+  @Override
+  public boolean onReadable() throws IOException {
+    if (readBuffer == null) {
+      readBuffer = POOL.acquire(INITIAL_BUFFER_SIZE);
+    }
+    int n = channel.read(readBuffer);
+    if (n == -1) {
+      close();
+      return false;
+    }
+    Metrics.DEFAULT.bytesIn(n);
+    session.received(n);
+
+    readBuffer.flip();
+    int required = processLines();
+    readBuffer.compact();
+
+    if (required < 0) {
+      close();  // line too long
+      return false;
+    }
+    if (readBuffer.position() == 0) {
+      POOL.release(readBuffer);
+      readBuffer = null;
+    } else if (required > readBuffer.capacity()) {
+      readBuffer = POOL.grow(readBuffer, required);
+    }
+    if (closing) {
+      scheduleFlush();
+    }
+    return false;  // output, if any, was scheduled through the loop already
+  }
+
+  /**
+   * Handles every complete line in {@code readBuffer}.
+   *
+   * @return read buffer capacity needed to make progress, or -1 if the line is too long
+   */
+  private int processLines() {
+    int start = readBuffer.position();
+    int limit = readBuffer.limit();
+    int nl;
+    int messages = 0;
+    while (!closing && (nl = LineCodec.indexOf(readBuffer, start, limit, (byte) '\n')) >= 0) {
+      int end = LineCodec.trimCr(readBuffer, start, nl);
+      if (LineCodec.isQuit(readBuffer, start, end)) {
+        closing = true;
+      } else if (startsWith(readBuffer, start, end, JOIN)) {
+        byte[] name = new byte[end - start - JOIN.length];
+        readBuffer.get(start + JOIN.length, name);
+        join(new String(name, StandardCharsets.UTF_8).trim());
+      } else {
+        publish(start, end - start);
+        messages++;
+      }
+      start = nl + 1;
+    }
+    readBuffer.position(start);
+    Metrics.DEFAULT.messages(messages);
+    session.messages(messages);
+
+    if (start > 0 || limit < readBuffer.capacity()) {
+      return 0;
+    }
+    if (readBuffer.capacity() >= LineCodec.MAX_LINE) {
+      return -1;
+    }
+    return Math.min(readBuffer.capacity() * 2, LineCodec.MAX_LINE);
+  }
+
+  /**
+   * Encodes {@code prefix + line + '\n'} once and hands it to the room.
+   */
+  private void publish(int offset, int length) {
+    SharedPayload payload = SharedPayload.allocate(prefix.length + length + 1);
+    ByteBuffer buffer = payload.buffer();
+    buffer.put(prefix);
+    buffer.put(buffer.position(), readBuffer, offset, length);
+    buffer.position(buffer.position() + length);
+    buffer.put((byte) '\n');
+    try {
+      room.publish(payload.seal());
+    } finally {
+      payload.release();
+    }
+  }
+
+  private void join(String name) {
+    if (name.isEmpty()) {
+      reply("* usage: /join <room>");
+      return;
+    }
+    Room next = rooms.acquire(name);  // before leaving: "/join" of the same room keeps it
+    if (room != null) {
+      room.leave(this);
+      rooms.release(room);
+    }
+    room = next;
+    room.join(this);
+    prefix = ("[" + name + "] " + user + ": ").getBytes(StandardCharsets.UTF_8);
+    reply("* " + user + " joined " + name + " (" + room.size() + " here)");
+  }
+
+  /**
+   * Queues a line for this connection only.
+   */
+  private void reply(String line) {
+    byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+    outbound.writable(bytes.length).put(bytes);
+    scheduleFlush();
+  }
+
+  /**
+   * Queues a published message for this member, unless its queue is over the limit.
+   * Called by its {@link Room} on this connection's loop.
+   */
+  void deliver(SharedPayload payload) {
+    if (closed || closing) {
+      return;
+    }
+    if (outbound.queuedBytes() + payload.length() > QUEUE_LIMIT) {
+      if (DISCONNECT_SLOW) {
+        DISCONNECTED.increment();
+        // Not close(): this may be the publisher, still inside processLines(). Nothing
+        // more is queued or read; the flush finds the queue empty and closes.
+        closing = true;
+        outbound.clear();
+        scheduleFlush();
+      } else {
+        DROPPED.increment();
+      }
+      return;
+    }
+    outbound.enqueue(payload);
+    scheduleFlush();
+  }
+
+  private void scheduleFlush() {
+    if (!flushScheduled) {
+      flushScheduled = true;
+      loop.flushLater(this);
+    }
+  }
+
+  @Override
+  public void onWritable() throws IOException {
+    flush();
+  }
+
+  @Override
+  public boolean flushIfDue(long now) throws IOException {
+    if (closed) {
+      return true;
+    }
+    if (!closing && !outbound.flushDue(now)) {
+      return false;
+    }
+    flushScheduled = false;
+    flush();
+    return true;
+  }
+
+  @Override
+  public long nanosUntilFlush(long now) {
+    return outbound.nanosUntilDue(now);
+  }
+
+  private void flush() throws IOException {
+    long queued = outbound.queuedBytes();
+    boolean drained = outbound.flushTo(channel);
+    long written = queued - outbound.queuedBytes();
+    Metrics.DEFAULT.bytesOut(written);
+    session.sent(written);
+
+    if (drained && closing) {
+      close();
+      return;
+    }
+    int ops = closing ? 0 : SelectionKey.OP_READ;
+    if (!drained) {
+      ops |= SelectionKey.OP_WRITE;
+    }
+    key.interestOps(ops);
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (room != null) {
+      room.leave(this);
+      rooms.release(room);
+    }
+    onClose.run();
+    ConnectionRegistry.DEFAULT.unregister(session);
+    Metrics.DEFAULT.connectionClosed();
+    POOL.release(readBuffer);
+    readBuffer = null;
+    outbound.clear();
+    key.cancel();
+    try {
+      channel.close();
+    } catch (IOException ignored) {
+      // Nothing useful to do; the socket is gone either way.
+    }
+  }
+
+  private static boolean startsWith(ByteBuffer buf, int start, int end, byte[] token) {
+    if (end - start < token.length) {
+      return false;
+    }
+    for (int i = 0; i < token.length; i++) {
+      if (buf.get(start + i) != token[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean parsePolicy(String policy) {
+    return switch (policy) {
+      case "drop" -> false;
+      case "disconnect" -> true;
+      default -> throw new IllegalArgumentException(
+          "Unknown slow-subscriber policy: " + policy + " (expected drop|disconnect)");
+    };
+  }
+
+}
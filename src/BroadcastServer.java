@@ -0,0 +1,131 @@
+import java.io.IOException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BroadcastServer - Oda tabanlı yayın (chat fan-out), boss + N event loop
+ *
+ * <p><b>Echo server'lardan farkı:</b>
+ * <ul>
+ *   <li>Echo'da her mesaj tek bir socket'e döner; burada bir client'ın mesajı odadaki
+ *       BÜTÜN client'lara gider (N alıcı)</li>
+ *   <li>Mesaj bir kere encode edilir ({@link SharedPayload}); her alıcının kuyruğuna
+ *       sadece read-only bir görünüm (view) eklenir: alıcı başına String veya
+ *       {@code byte[]} kopyası yok</li>
+ *   <li>10k alıcılı bir mesaj = 1 encode + loop başına 1 task + N write</li>
+ *   <li>Yavaş alıcı odayı durduramaz: kuyruğu limiti aşarsa mesaj ona atlanır
+ *       (ya da bağlantısı kapatılır)</li>
+ * </ul>
+ *
+ * <p><b>Mimari:</b>
+ * <pre>
+ *                         ┌─→ broadcast-worker-1 ─→ BroadcastConnection'lar ─┐
+ *   Client'lar ─→ boss ───┼─→ broadcast-worker-2 ─→ BroadcastConnection'lar ─┼─ Room shard'ları
+ *                (accept) └─→ broadcast-worker-N ─→ BroadcastConnection'lar ─┘  (loop başına)
+ * </pre>
+ *
+ * <p><b>Protokol:</b>
+ * <pre>
+ *   merhaba         → odadaki herkese (gönderen dahil): "[lobby] user-3: merhaba"
+ *   /join oyun      → "lobby"den çık, "oyun"a gir
+ *   quit            → bağlantıyı kapat
+ * </pre>
+ *
+ * <p><b>Ayarlar (system property):</b>
+ * <pre>
+ *   -Dbroadcast.workers=8                   event loop sayısı (varsayılan: CPU sayısı)
+ *   -Dbroadcast.queue.bytes=262144          alıcı başına gönderilmemiş byte limiti
+ *   -Dbroadcast.slow=drop|disconnect        limit aşılınca: mesajı atla | bağlantıyı kapat
+ * </pre>
+ *
+ * <p><b>Test Senaryosu:</b>
+ * <pre>
+ *   java BroadcastServer
+ *   nc localhost 8008   (birkaç terminalde; birine yazılan herkese düşer)
+ * </pre>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class BroadcastServer {
+
+  private static final int PORT = 8008;
+
+  private static final int WORKERS =
+      Integer.getInteger("broadcast.workers", Runtime.getRuntime().availableProcessors());
+
+  private static final AtomicLong USERS = new AtomicLong();
+
+  /**
+   * Server'ın ana giriş noktası. Main thread boss (acceptor) olarak çalışır.
+   *
+   * @param args Komut satırı argümanları (kullanılmıyor)
+   */
+  public static void main(String[] args) {
+
+    System.out.println("Broadcast Rooms (boss + " + WORKERS + " workers)");
+    System.out.println("Starting TCP Server on port: " + PORT + "...\n");
+
+    EventLoop[] workers = new EventLoop[WORKERS];
+
+    /*
+     * Oda adı → oda. İlk /join ile oluşur, son üye çıkınca silinir: uydurma isimlerle
+     * /join yapan client'lar map'i sınırsız büyütemez.
+     */
+    Room.Directory rooms = new Room.Directory(workers);
+
+    try (ServerSocketChannel serverChannel = NioEchoServer.bind(PORT)) {
+
+      Metrics.DEFAULT.gauge("broadcast_dropped_messages",
+          "Messages skipped for subscribers whose queue was full.",
+          BroadcastConnection.DROPPED::sum);
+      Metrics.DEFAULT.gauge("broadcast_disconnected_slow",
+          "Subscribers closed because their queue was full.",
+          BroadcastConnection.DISCONNECTED::sum);
+      Metrics.DEFAULT.gauge("broadcast_rooms", "Rooms with at least one member.",
+          rooms::size);
+      Metrics.startEndpoint();
+
+      for (int i = 0; i < WORKERS; i++) {
+        workers[i] = new EventLoop("broadcast-worker-" + (i + 1));
+        workers[i].start();
+      }
+      System.out.println("Server Listening on port " + PORT + " (queue limit "
+          + BroadcastConnection.QUEUE_LIMIT + " B, slow="
+          + (BroadcastConnection.DISCONNECT_SLOW ? "disconnect" : "drop") + ")\n");
+
+      /*
+       * Her worker'ın factory'si kendi index'ini bilir: Room o index'teki shard'a
+       * ekler, böylece shard'a sadece o loop'un thread'i dokunur.
+       */
+      LoopConnection.Factory[] factories = new LoopConnection.Factory[WORKERS];
+      for (int i = 0; i < WORKERS; i++) {
+        int index = i;
+        factories[i] = (loop, channel, key, onClose) -> new BroadcastConnection(
+            loop, index, channel, key, onClose,
+            rooms,
+            "user-" + USERS.incrementAndGet());
+      }
+
+      int next = 0;
+      while (true) {
+        SocketChannel channel = serverChannel.accept();
+        workers[next].register(channel, factories[next]);
+        next = (next + 1) % WORKERS;
+      }
+
+    } catch (IOException ex) {
+      System.err.println("Server error: " + ex.getMessage());
+      ex.printStackTrace();
+    } finally {
+      for (EventLoop worker : workers) {
+        if (worker != null) {
+          worker.shutdown();
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,291 @@
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CommandCache - Short-lived result cache for idempotent, read-only terminal commands.
+ *
+ * <p>Monitoring clients poll the same commands ({@code uptime}, {@code df -h},
+ * {@code cat /proc/loadavg}) many times per second, and every poll forks a process. For
+ * commands explicitly listed as cacheable, the result (stdout, stderr, exit code) is kept
+ * for a per-command TTL and replayed to the next caller:</p>
+ * <pre>
+ * get(cmd, cwd, env)
+ *   ├─→ not listed                 → run it (not cached)
+ *   ├─→ fresh entry in LRU         → hit: replay bytes, no process
+ *   ├─→ same key already running   → coalesced: wait for that run's result
+ *   └─→ otherwise                  → miss: run once, store, complete waiting callers
+ * </pre>
+ *
+ * <p>Waiting callers share the leader's result and its failure, except an interrupt: the
+ * leader's client disconnecting is not the waiters' problem, so they retry and one of them
+ * runs the command instead.</p>
+ *
+ * <h3>Configuration:</h3>
+ * <pre>
+ * -Dterminal.cache.commands="uptime=1000;df -h=5000;cat /proc/loadavg=250"
+ *                                     command=TTL in ms, ';'-separated (opt-in: empty = off;
+ *                                     cacheable commands cannot contain ';')
+ * -Dterminal.cache.max.bytes=16777216 total bytes of cached output (LRU eviction)
+ * </pre>
+ *
+ * <p>The key is the exact command string plus the working directory and the session's
+ * exported variables, so {@code ls} in two directories, or {@code echo $HOME} in two
+ * sessions with different exports, are two entries. Only listed commands are cached:
+ * the cache cannot know which commands have side effects.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class CommandCache {
+
+  /**
+   * Server-wide cache, or {@code null} when no command is configured as cacheable.
+   */
+  static final CommandCache DEFAULT = create(
+      System.getProperty("terminal.cache.commands", ""),
+      Long.getLong("terminal.cache.max.bytes", 16L * 1024 * 1024));
+
+  /**
+   * Loads a result on a miss (runs the command).
+   */
+  @FunctionalInterface
+  interface Loader {
+    Result load() throws Exception;
+  }
+
+  /**
+   * Cache key: command string, working directory and the variables the session exported.
+   */
+  record Key(String command, String workingDirectory, Map<String, String> environment) {
+
+    Key {
+      environment = Map.copyOf(environment);
+    }
+  }
+
+  /**
+   * Captured output of one command run.
+   */
+  record Result(byte[] stdout, byte[] stderr, int exitCode) {
+
+    long bytes() {
+      return stdout.length + stderr.length;
+    }
+  }
+
+  private record Entry(Result result, long expiresAt) {
+  }
+
+  private final Map<String, Long> ttlNanos;
+  private final long maxBytes;
+
+  /**
+   * Access-ordered, so iteration starts at the least recently used entry. Guarded by
+   * {@code this}.
+   */
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+  private long bytes;
+
+  private final ConcurrentHashMap<Key, CompletableFuture<Result>> inFlight =
+      new ConcurrentHashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Creates a cache.
+   *
+   * @param ttlMillis cacheable commands and their TTLs in milliseconds
+   * @param maxBytes  most output bytes kept across all entries
+   */
+  CommandCache(Map<String, Long> ttlMillis, long maxBytes) {
+    this.ttlNanos = new HashMap<>();
+    ttlMillis.forEach((command, ttl) -> ttlNanos.put(command, ttl * 1_000_000L));
+    this.maxBytes = maxBytes;
+  }
+
+  private static CommandCache create(String spec, long maxBytes) {
+    Map<String, Long> ttls = new HashMap<>();
+    for (String item : spec.split(";")) {
+      if (item.isBlank()) {
+        continue;
+      }
+      int eq = item.lastIndexOf('=');
+      if (eq <= 0) {
+        throw new IllegalArgumentException(
+            "Bad terminal.cache.commands entry: \"" + item + "\" (expected command=ttlMillis)");
+      }
+      ttls.put(item.substring(0, eq).trim(), Long.parseLong(item.substring(eq + 1).trim()));
+    }
+    return ttls.isEmpty() ? null : new CommandCache(ttls, maxBytes);
+  }
+
+  /**
+   * Whether {@code command} is configured as cacheable.
+   */
+  boolean isCacheable(String command) {
+    return ttlNanos.containsKey(command);
+  }
+
+  /**
+   * Returns the cached result for {@code key}, or runs {@code loader} once for all
+   * concurrent callers of the same key and caches what it returns.
+   *
+   * @param key    command, working directory and exported variables
+   * @param loader runs the command; called at most once per miss
+   * @return the (possibly shared) result
+   * @throws Exception            whatever {@code loader} threw, for every waiting caller
+   *                              (except an interrupt, which only the loading caller sees)
+   * @throws InterruptedException if interrupted while loading or while waiting for another
+   *                              caller's run
+   */
+  Result get(Key key, Loader loader) throws Exception {
+    while (true) {
+      Result result = getOrLoad(key, loader);
+      if (result != null) {
+        return result;
+      }
+      // The leader was interrupted (its client left); try again, possibly as leader
+    }
+  }
+
+  /**
+   * One attempt of {@link #get}.
+   *
+   * @return the result, or {@code null} if the run this caller waited for was cancelled
+   */
+  private Result getOrLoad(Key key, Loader loader) throws Exception {
+    long ttl = ttlNanos.getOrDefault(key.command(), 0L);
+
+    Result cached = fresh(key);
+    if (cached != null) {
+      hits.increment();
+      return cached;
+    }
+
+    CompletableFuture<Result> mine = new CompletableFuture<>();
+    CompletableFuture<Result> running = inFlight.putIfAbsent(key, mine);
+    if (running != null) {
+      coalesced.increment();
+      try {
+        return running.get();
+      } catch (CancellationException e) {
+        return null;
+      } catch (ExecutionException e) {
+        throw e.getCause() instanceof Exception cause ? cause : e;
+      }
+    }
+
+    try {
+      Result result = fresh(key);
+      if (result != null) {
+        // Another leader stored it between our lookup and putIfAbsent.
+        hits.increment();
+        mine.complete(result);
+        return result;
+      }
+      misses.increment();
+      result = loader.load();
+      if (ttl > 0) {
+        put(key, new Entry(result, System.nanoTime() + ttl));
+      }
+      mine.complete(result);
+      return result;
+    } catch (InterruptedException e) {
+      mine.cancel(false);  // waiters retry instead of ending their own sessions
+      throw e;
+    } catch (Exception | Error e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  private synchronized Result fresh(Key key) {
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (System.nanoTime() - entry.expiresAt() < 0) {
+      return entry.result();
+    }
+    remove(key);
+    return null;
+  }
+
+  private synchronized void put(Key key, Entry entry) {
+    long size = entry.result().bytes();
+    if (size > maxBytes) {
+      return;
+    }
+    remove(key);
+    entries.put(key, entry);
+    bytes += size;
+
+    Iterator<Entry> lru = entries.values().iterator();
+    while (bytes > maxBytes && lru.hasNext()) {
+      bytes -= lru.next().result().bytes();
+      lru.remove();
+      evictions.increment();
+    }
+  }
+
+  private void remove(Key key) {
+    Entry old = entries.remove(key);
+    if (old != null) {
+      bytes -= old.result().bytes();
+    }
+  }
+
+  /**
+   * Lookups answered from the cache.
+   */
+  long hits() {
+    return hits.sum();
+  }
+
+  /**
+   * Lookups that ran the command.
+   */
+  long misses() {
+    return misses.sum();
+  }
+
+  /**
+   * Lookups that waited for a concurrent identical run instead of starting their own.
+   */
+  long coalesced() {
+    return coalesced.sum();
+  }
+
+  /**
+   * Entries dropped to stay under the byte limit.
+   */
+  long evictions() {
+    return evictions.sum();
+  }
+
+  /**
+   * One-line summary for logs and the {@code cachestats} command.
+   */
+  synchronized String stats() {
+    return "[cache] entries=" + entries.size()
+        + " bytes=" + bytes + "/" + maxBytes
+        + " hits=" + hits.sum()
+        + " misses=" + misses.sum()
+        + " coalesced=" + coalesced.sum()
+        + " evictions=" + evictions.sum();
+  }
+
+}
@@ -0,0 +1,82 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ConcurrentHistogram - Lock-free, multi-writer version of {@link LatencyHistogram}.
+ *
+ * <p>Uses the same log-linear buckets ({@link LatencyHistogram#indexOf}), but every
+ * bucket is an atomic counter, so any number of threads can {@link #record} without a
+ * lock. Samples of one workload land in the same few buckets; if all threads shared one
+ * array they would fight over the same cache lines. The counters are therefore striped:</p>
+ * <pre>
+ * record(v) ─→ stripe = threadId &amp; (stripes - 1)
+ *              counts[stripe].getAndIncrement(indexOf(v))    (one atomic add)
+ *
+ * counts()  ─→ Σ over stripes, per bucket                    (reader pays, not writers)
+ * </pre>
+ *
+ * <p>Reads are not a consistent snapshot: a sample recorded during {@link #counts()}
+ * may or may not be included. That is fine for monitoring, where the next scrape
+ * picks it up.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class ConcurrentHistogram {
+
+  private static final int BUCKETS = LatencyHistogram.indexOf(LatencyHistogram.MAX_VALUE) + 1;
+
+  private final AtomicLongArray[] stripes;
+  private final int mask;
+  private final LongAdder sum = new LongAdder();
+
+  /**
+   * Creates a histogram with one stripe per CPU (rounded up to a power of two, at most 16).
+   */
+  ConcurrentHistogram() {
+    int cpus = Runtime.getRuntime().availableProcessors();
+    int n = Math.min(16, Integer.highestOneBit(Math.max(1, cpus * 2 - 1)));
+    this.stripes = new AtomicLongArray[n];
+    for (int i = 0; i < n; i++) {
+      stripes[i] = new AtomicLongArray(BUCKETS);
+    }
+    this.mask = n - 1;
+  }
+
+  /**
+   * Records one value. Safe to call from any thread.
+   *
+   * @param nanos latency in nanoseconds; negative values count as 0
+   */
+  void record(long nanos) {
+    long v = Math.min(Math.max(nanos, 0), LatencyHistogram.MAX_VALUE);
+    int stripe = (int) Thread.currentThread().threadId() & mask;
+    stripes[stripe].getAndIncrement(LatencyHistogram.indexOf(v));
+    sum.add(v);
+  }
+
+  /**
+   * Per-bucket sample counts summed over all stripes, indexed like
+   * {@link LatencyHistogram#indexOf}.
+   *
+   * @return a fresh array of {@code BUCKETS} counts
+   */
+  long[] counts() {
+    long[] counts = new long[BUCKETS];
+    for (AtomicLongArray stripe : stripes) {
+      for (int i = 0; i < BUCKETS; i++) {
+        counts[i] += stripe.get(i);
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * Sum of all recorded values in nanoseconds.
+   */
+  long sum() {
+    return sum.sum();
+  }
+
+}
@@ -0,0 +1,206 @@
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * ConnectionDeadlines - Idle, read and write deadlines of one blocking connection,
+ * enforced by closing its socket.
+ *
+ * <p>A thread blocked in {@code readLine()} or {@code write()} waits forever by default:
+ * an idle client, a slowloris client that sends one byte every few seconds, or a client
+ * that never reads its responses each pin a thread and a socket indefinitely. The
+ * connection thread instead announces what it is about to block on, and a single
+ * {@link TimingWheel} entry per connection checks the deadline:</p>
+ * <pre>
+ * phase      entered when                            deadline (-D...)
+ * IDLE       waiting for the first byte of a request timeout.idle.ms   (default 5 min)
+ * READING    waiting for the rest of a started line  timeout.read.ms   (default 30 s)
+ * WRITING    blocked handing a response to the kernel timeout.write.ms (default 30 s)
+ * BUSY       doing server-side work (e.g. a command)  none
+ * </pre>
+ *
+ * <p>Expiry closes the socket from the wheel thread. That makes the connection thread's
+ * blocked read or write throw, and it cleans up through its normal error path.</p>
+ *
+ * <h3>Why this stays cheap at 100k connections:</h3>
+ * <ul>
+ *   <li>A phase change is two volatile writes; it never touches the wheel. READING keeps
+ *       the time the line <em>started</em>, so trickling bytes cannot extend it.</li>
+ *   <li>The wheel entry is rescheduled lazily when it fires: at the current deadline,
+ *       or sooner ({@link #RECHECK_NANOS}) in case the connection has since moved to a
+ *       phase with a shorter deadline. A deadline is therefore enforced at most
+ *       {@code RECHECK} plus one tick late.</li>
+ * </ul>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class ConnectionDeadlines {
+
+  enum Phase { IDLE, READING, WRITING, BUSY }
+
+  static final long IDLE_NANOS = Long.getLong("timeout.idle.ms", 300_000) * 1_000_000L;
+  static final long READ_NANOS = Long.getLong("timeout.read.ms", 30_000) * 1_000_000L;
+  static final long WRITE_NANOS = Long.getLong("timeout.write.ms", 30_000) * 1_000_000L;
+
+  private static final long SHORTEST_NANOS =
+      minPositive(minPositive(IDLE_NANOS, READ_NANOS), WRITE_NANOS);
+
+  /**
+   * Whether any deadline is configured; {@code -Dtimeout.*.ms=0} disables one.
+   */
+  static final boolean ENABLED = SHORTEST_NANOS > 0;
+
+  /**
+   * Longest a wheel entry sleeps without re-reading the phase: a quarter of the
+   * shortest configured deadline.
+   */
+  private static final long RECHECK_NANOS = Math.max(1_000_000L, SHORTEST_NANOS / 4);
+
+  private final Closeable connection;
+  private final String name;
+  private final TimingWheel wheel;
+
+  // Written by the connection thread (phaseStart before phase), read by the wheel thread
+  private volatile long phaseStart = System.nanoTime();
+  private volatile Phase phase = Phase.BUSY;
+
+  private volatile boolean stopped;
+  private TimingWheel.Timeout timeout;
+
+  private ConnectionDeadlines(Closeable connection, String name, TimingWheel wheel) {
+    this.connection = connection;
+    this.name = name;
+    this.wheel = wheel;
+  }
+
+  /**
+   * Starts watching a connection on the default wheel. The connection starts in
+   * {@link Phase#BUSY}; call {@link #stop()} when it closes normally.
+   *
+   * @param connection closed when a deadline passes (usually the client socket)
+   * @param name       used in the log line on expiry
+   * @return the connection's deadlines
+   */
+  static ConnectionDeadlines watch(Closeable connection, String name) {
+    ConnectionDeadlines deadlines =
+        new ConnectionDeadlines(connection, name, TimingWheel.DEFAULT);
+    if (ENABLED) {
+      deadlines.schedule(RECHECK_NANOS);
+    }
+    return deadlines;
+  }
+
+  /**
+   * About to block waiting for a new request.
+   */
+  void idle() {
+    enter(Phase.IDLE);
+  }
+
+  /**
+   * About to block waiting for the rest of a request that has started. Keeps the
+   * original start if already reading.
+   */
+  void reading() {
+    if (phase != Phase.READING) {
+      enter(Phase.READING);
+    }
+  }
+
+  /**
+   * About to block writing to the client.
+   */
+  void writing() {
+    enter(Phase.WRITING);
+  }
+
+  /**
+   * Working on the server side; no deadline.
+   */
+  void busy() {
+    if (phase != Phase.BUSY) {
+      enter(Phase.BUSY);
+    }
+  }
+
+  Phase phase() {
+    return phase;
+  }
+
+  /**
+   * Returns to {@code previous} (as read by {@link #phase()}) after a nested write,
+   * restarting its clock.
+   */
+  void restore(Phase previous) {
+    enter(previous);
+  }
+
+  /**
+   * Stops watching; the pending wheel entry is discarded.
+   */
+  void stop() {
+    stopped = true;
+    TimingWheel.Timeout t = timeout;
+    if (t != null) {
+      t.cancel();
+    }
+  }
+
+  private void enter(Phase next) {
+    if (!ENABLED) {
+      return;
+    }
+    phaseStart = System.nanoTime();
+    phase = next;
+  }
+
+  private void schedule(long delayNanos) {
+    timeout = wheel.schedule(this::check, Math.min(delayNanos, RECHECK_NANOS));
+  }
+
+  /**
+   * Wheel thread: expire the connection or reschedule.
+   */
+  private void check() {
+    if (stopped) {
+      return;
+    }
+    Phase p = phase;
+    long start = phaseStart;
+    long limit = limitOf(p);
+    if (limit <= 0) {
+      schedule(RECHECK_NANOS);
+      return;
+    }
+    long left = start + limit - System.nanoTime();
+    if (left > 0) {
+      schedule(left);
+      return;
+    }
+    stopped = true;
+    Log.info("Closing %s: %s timeout (%d ms)", name, p.name().toLowerCase(), limit / 1_000_000);
+    try {
+      connection.close();
+    } catch (IOException ignored) {
+      // Closing is the whole point; the connection thread sees the failure
+    }
+  }
+
+  private static long limitOf(Phase phase) {
+    return switch (phase) {
+      case IDLE -> IDLE_NANOS;
+      case READING -> READ_NANOS;
+      case WRITING -> WRITE_NANOS;
+      case BUSY -> 0;
+    };
+  }
+
+  private static long minPositive(long a, long b) {
+    if (a <= 0) {
+      return b;
+    }
+    return b <= 0 ? a : Math.min(a, b);
+  }
+
+}
@@ -0,0 +1,432 @@
+import com.sun.net.httpserver.HttpExchange;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * ConnectionRegistry - Every live connection of the process, by {@code long} id, with
+ * per-connection stats, for admin listing and killing.
+ *
+ * <p>Servers used to know a connection only as a local {@code clientSocket} variable.
+ * Now every handler registers its connection when it starts and unregisters it when it
+ * closes. Registration has to stay cheap at tens of thousands of connects per second on
+ * many threads, so the table is striped:</p>
+ * <pre>
+ * id = ids.incrementAndGet()          (one atomic add)
+ * stripe = stripes[id &amp; 63]          consecutive ids land on different stripes
+ *   synchronized (stripe)             64 small locks: concurrent accepts and closes
+ *     open-addressing long → Entry    rarely touch the same one; no boxing of ids
+ * </pre>
+ *
+ * <p>{@link #snapshot()} locks one stripe at a time while it copies it, so a listing never
+ * stops the whole server. Stats live in the {@link Entry} and are written only by the
+ * connection's own thread (plain stores made visible with opaque mode, no locks, no
+ * fences); readers see values that are at most a moment old.</p>
+ *
+ * <h3>Admin endpoint</h3>
+ * <p>Served next to {@code /metrics} when {@code -Dmetrics.port} is set, on loopback
+ * unless {@code -Dmetrics.host} says otherwise: there is no authentication, and the list
+ * shows client addresses.</p>
+ * <pre>
+ * curl localhost:9100/connections                  table of live connections
+ * curl -X POST 'localhost:9100/connections/kill?id=42'
+ * </pre>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class ConnectionRegistry {
+
+  /**
+   * Process-wide registry; servers share it like {@link Metrics#DEFAULT}.
+   */
+  static final ConnectionRegistry DEFAULT = new ConnectionRegistry(64);
+
+  private final Stripe[] stripes;
+  private final int mask;
+  private final AtomicLong ids = new AtomicLong();
+
+  /**
+   * One live connection and its counters.
+   */
+  static final class Entry {
+
+    private static final VarHandle BYTES_IN;
+    private static final VarHandle BYTES_OUT;
+    private static final VarHandle MESSAGES;
+    private static final VarHandle LAST_ACTIVE;
+
+    static {
+      try {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        BYTES_IN = lookup.findVarHandle(Entry.class, "bytesIn", long.class);
+        BYTES_OUT = lookup.findVarHandle(Entry.class, "bytesOut", long.class);
+        MESSAGES = lookup.findVarHandle(Entry.class, "messages", long.class);
+        LAST_ACTIVE = lookup.findVarHandle(Entry.class, "lastActive", long.class);
+      } catch (ReflectiveOperationException e) {
+        throw new ExceptionInInitializerError(e);
+      }
+    }
+
+    private final long id;
+    private final String kind;
+    private final InetAddress remoteAddress;
+    private final int remotePort;
+    private final long openedAtMillis = System.currentTimeMillis();
+    private final Closeable closer;
+
+    // Single writer (the connection's thread), read by admin threads in opaque mode
+    private long bytesIn;
+    private long bytesOut;
+    private long messages;
+    private long lastActive = System.nanoTime();
+
+    private Entry(long id, String kind, InetAddress remoteAddress, int remotePort,
+        Closeable closer) {
+      this.id = id;
+      this.kind = kind;
+      this.remoteAddress = remoteAddress;
+      this.remotePort = remotePort;
+      this.closer = closer;
+    }
+
+    long id() {
+      return id;
+    }
+
+    String kind() {
+      return kind;
+    }
+
+    InetAddress remoteAddress() {
+      return remoteAddress;
+    }
+
+    /**
+     * Counts bytes read from the client.
+     */
+    void received(long n) {
+      BYTES_IN.setOpaque(this, (long) BYTES_IN.getOpaque(this) + n);
+      LAST_ACTIVE.setOpaque(this, System.nanoTime());
+    }
+
+    /**
+     * Counts bytes written to the client.
+     */
+    void sent(long n) {
+      BYTES_OUT.setOpaque(this, (long) BYTES_OUT.getOpaque(this) + n);
+      LAST_ACTIVE.setOpaque(this, System.nanoTime());
+    }
+
+    /**
+     * Counts requests (lines, frames, commands) handled.
+     */
+    void messages(long n) {
+      if (n != 0) {
+        MESSAGES.setOpaque(this, (long) MESSAGES.getOpaque(this) + n);
+      }
+    }
+
+    long bytesIn() {
+      return (long) BYTES_IN.getOpaque(this);
+    }
+
+    long bytesOut() {
+      return (long) BYTES_OUT.getOpaque(this);
+    }
+
+    long messages() {
+      return (long) MESSAGES.getOpaque(this);
+    }
+
+    /**
+     * Nanoseconds since the last byte was read or written.
+     */
+    long idleNanos() {
+      return System.nanoTime() - (long) LAST_ACTIVE.getOpaque(this);
+    }
+
+    /**
+     * Closes the connection from outside. Its handler sees the failure and unregisters
+     * through its normal path.
+     */
+    void kill() {
+      try {
+        closer.close();
+      } catch (IOException ignored) {
+        // Already closing; either way it is going away
+      }
+    }
+  }
+
+  /**
+   * A lock and an open-addressing table (linear probing, backward-shift deletion).
+   */
+  private static final class Stripe {
+    private long[] keys = new long[16];  // 0 = empty; ids start at 1
+    private Entry[] values = new Entry[16];
+    private volatile int size;
+
+    synchronized void put(Entry entry) {
+      if ((size + 1) * 4 > keys.length * 3) {
+        resize();
+      }
+      int i = slot(entry.id, keys.length);
+      while (keys[i] != 0) {
+        i = (i + 1) & (keys.length - 1);
+      }
+      keys[i] = entry.id;
+      values[i] = entry;
+      size++;
+    }
+
+    synchronized Entry get(long id) {
+      int i = indexOf(id);
+      return i < 0 ? null : values[i];
+    }
+
+    synchronized boolean remove(long id) {
+      int i = indexOf(id);
+      if (i < 0) {
+        return false;
+      }
+      // Shift later members of the probe run back so lookups never hit a false gap
+      int length = keys.length;
+      int gap = i;
+      int j = i;
+      while (true) {
+        j = (j + 1) & (length - 1);
+        if (keys[j] == 0) {
+          break;
+        }
+        int home = slot(keys[j], length);
+        boolean movable = gap <= j ? (home <= gap || home > j) : (home <= gap && home > j);
+        if (movable) {
+          keys[gap] = keys[j];
+          values[gap] = values[j];
+          gap = j;
+        }
+      }
+      keys[gap] = 0;
+      values[gap] = null;
+      size--;
+      return true;
+    }
+
+    synchronized void copyTo(List<Entry> out) {
+      for (Entry value : values) {
+        if (value != null) {
+          out.add(value);
+        }
+      }
+    }
+
+    private int indexOf(long id) {
+      int i = slot(id, keys.length);
+      while (keys[i] != 0) {
+        if (keys[i] == id) {
+          return i;
+        }
+        i = (i + 1) & (keys.length - 1);
+      }
+      return -1;
+    }
+
+    private void resize() {
+      long[] oldKeys = keys;
+      Entry[] oldValues = values;
+      keys = new long[oldKeys.length * 2];
+      values = new Entry[oldKeys.length * 2];
+      for (int k = 0; k < oldKeys.length; k++) {
+        if (oldKeys[k] != 0) {
+          int i = slot(oldKeys[k], keys.length);
+          while (keys[i] != 0) {
+            i = (i + 1) & (keys.length - 1);
+          }
+          keys[i] = oldKeys[k];
+          values[i] = oldValues[k];
+        }
+      }
+    }
+
+    private static int slot(long id, int length) {
+      return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & (length - 1);
+    }
+  }
+
+  /**
+   * Creates a registry.
+   *
+   * @param stripeCount number of stripes, rounded up to a power of two
+   */
+  ConnectionRegistry(int stripeCount) {
+    int size = Integer.highestOneBit(Math.max(1, stripeCount) * 2 - 1);
+    stripes = new Stripe[size];
+    for (int i = 0; i < size; i++) {
+      stripes[i] = new Stripe();
+    }
+    mask = size - 1;
+  }
+
+  /**
+   * Registers a new connection.
+   *
+   * @param kind          protocol shown in listings ("echo", "terminal", ...)
+   * @param remoteAddress the client's address
+   * @param remotePort    the client's port
+   * @param closer        closes the connection for {@link Entry#kill()}; must be safe to
+   *                      call from any thread
+   * @return the entry; pass it to {@link #unregister} when the connection closes
+   */
+  Entry register(String kind, InetAddress remoteAddress, int remotePort, Closeable closer) {
+    Entry entry = new Entry(ids.incrementAndGet(), kind, remoteAddress, remotePort, closer);
+    stripes[(int) entry.id & mask].put(entry);
+    return entry;
+  }
+
+  /**
+   * Removes a closed connection. Safe to call more than once.
+   */
+  void unregister(Entry entry) {
+    stripes[(int) entry.id & mask].remove(entry.id);
+  }
+
+  /**
+   * The live connection with {@code id}, or {@code null}.
+   */
+  Entry get(long id) {
+    return stripes[(int) id & mask].get(id);
+  }
+
+  /**
+   * Closes the live connection with {@code id}.
+   *
+   * @return {@code false} if no such connection is registered
+   */
+  boolean kill(long id) {
+    Entry entry = get(id);
+    if (entry == null) {
+      return false;
+    }
+    entry.kill();
+    return true;
+  }
+
+  /**
+   * Number of live connections.
+   */
+  int size() {
+    int total = 0;
+    for (Stripe stripe : stripes) {
+      total += stripe.size;
+    }
+    return total;
+  }
+
+  /**
+   * A copy of the live entries, one stripe locked at a time. Connections that open or
+   * close during the copy may or may not be included.
+   */
+  List<Entry> snapshot() {
+    List<Entry> entries = new ArrayList<>(size() + 16);
+    for (Stripe stripe : stripes) {
+      stripe.copyTo(entries);
+    }
+    return entries;
+  }
+
+  /**
+   * Runs {@code action} for every live connection, over a {@link #snapshot()} (e.g. to
+   * notify everyone before a shutdown). No lock is held while it runs.
+   */
+  void forEach(Consumer<Entry> action) {
+    snapshot().forEach(action);
+  }
+
+  // ─────────────────────────────────────────────────────────────────────────
+  // Admin endpoint
+  // ─────────────────────────────────────────────────────────────────────────
+
+  /**
+   * Renders the live connections as a text table, oldest first.
+   */
+  String render() {
+    List<Entry> entries = snapshot();
+    entries.sort((a, b) -> Long.compare(a.id, b.id));
+    long now = System.currentTimeMillis();
+    StringBuilder out = new StringBuilder();
+    out.append(String.format("%-8s %-10s %-24s %8s %8s %14s %14s %10s%n",
+        "id", "kind", "remote", "age_s", "idle_s", "bytes_in", "bytes_out", "messages"));
+    for (Entry e : entries) {
+      out.append(String.format("%-8d %-10s %-24s %8d %8d %14d %14d %10d%n",
+          e.id, e.kind, e.remoteAddress.getHostAddress() + ":" + e.remotePort,
+          (now - e.openedAtMillis) / 1000, e.idleNanos() / 1_000_000_000L,
+          e.bytesIn(), e.bytesOut(), e.messages()));
+    }
+    out.append(entries.size()).append(" connections\n");
+    return out.toString();
+  }
+
+  /**
+   * HTTP handler: {@code GET /connections} lists, {@code POST /connections/kill?id=N}
+   * closes one connection.
+   */
+  void serve(HttpExchange exchange) throws IOException {
+    String path = exchange.getRequestURI().getPath();
+    int status;
+    String body;
+    if (path.equals("/connections") && exchange.getRequestMethod().equals("GET")) {
+      status = 200;
+      body = render();
+    } else if (path.equals("/connections/kill")) {
+      if (!exchange.getRequestMethod().equals("POST")) {
+        status = 405;
+        body = "use POST\n";
+      } else {
+        long id = parseId(exchange.getRequestURI().getQuery());
+        if (id > 0 && kill(id)) {
+          Log.info("[admin] killed connection %d", id);
+          status = 200;
+          body = "killed " + id + "\n";
+        } else {
+          status = 404;
+          body = "no connection with id " + id + "\n";
+        }
+      }
+    } else {
+      status = 404;
+      body = "not found\n";
+    }
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private static long parseId(String query) {
+    if (query != null) {
+      for (String pair : query.split("&")) {
+        if (pair.startsWith("id=")) {
+          try {
+            return Long.parseLong(pair.substring(3));
+          } catch (NumberFormatException e) {
+            return -1;
+          }
+        }
+      }
+    }
+    return -1;
+  }
+
+}
@@ -0,0 +1,388 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * EchoConnection - Per-connection state of the non-blocking echo protocol.
+ *
+ * <p>Implements the {@link LoopingEchoServer} protocol directly on {@link ByteBuffer}s:
+ * every {@code \n}-terminated line is answered with {@code "Echo: " + line}, and
+ * {@code quit} closes the connection. No {@code String} is created per message;
+ * the line bytes are copied from the read buffer straight into the outbound buffer
+ * ({@link LineCodec}).</p>
+ *
+ * <h3>Non-blocking rules:</h3>
+ * <ul>
+ *   <li><strong>Partial reads</strong> - a read may end in the middle of a line. The
+ *       unfinished tail stays in {@code readBuffer} (via {@code compact()}) until the
+ *       rest arrives.</li>
+ *   <li><strong>Partial writes</strong> - {@code channel.write()} may accept only part of
+ *       the response. The remainder stays in the {@link OutboundQueue} and
+ *       {@code OP_WRITE} is enabled until it drains.</li>
+ *   <li><strong>Backpressure</strong> - while unsent output is above the high-water mark,
+ *       {@code OP_READ} is disabled so a client that never reads cannot make us buffer
+ *       unbounded responses.</li>
+ * </ul>
+ *
+ * <h3>Write coalescing:</h3>
+ * <p>{@link #onReadable()} only <em>queues</em> responses. The {@link EventLoop} calls
+ * {@link #flushIfDue(long)} after it has processed the whole batch of ready keys, so all
+ * responses produced by one read go out in a single gathering write.</p>
+ *
+ * <h3>Binary framing:</h3>
+ * <p>On a listener configured with {@link Framing#INT32} or {@link Framing#VARINT} the
+ * connection reads a length header, waits until exactly that many payload bytes are
+ * buffered (growing the pooled read buffer to the frame size if needed) and echoes the
+ * payload back with the same framing. No byte of the payload is scanned.</p>
+ *
+ * <h3>TLS:</h3>
+ * <p>Given a {@link TlsContext}, the connection reads and writes through a
+ * {@link TlsChannel} instead of the raw channel; framing, echo and coalescing are
+ * unchanged. Since one socket read may carry several TLS records, it keeps reading
+ * until the TLS channel has nothing buffered.</p>
+ *
+ * <p>The read buffer is borrowed from {@link BufferPool} only while it holds unprocessed
+ * bytes, so an idle connection holds no buffer memory at all.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class EchoConnection implements LoopConnection {
+
+  /**
+   * Stop reading while more than this many response bytes are waiting to be sent.
+   */
+  private static final int WRITE_HIGH_WATER = 256 * 1024;
+
+  private static final int INITIAL_BUFFER_SIZE = 4096;
+
+  private static final BufferPool POOL = BufferPool.DEFAULT;
+
+  private final SocketChannel channel;
+  private final SelectionKey key;
+  private final OutboundQueue outbound = new OutboundQueue();
+  private final Framing framing;
+  private final Runnable onClose;
+
+  /**
+   * The TLS layer over {@code channel}, or {@code null} for plaintext.
+   */
+  private final TlsChannel tls;
+
+  /**
+   * Per-connection stats and admin kill; killing hops onto the owning loop.
+   */
+  private final ConnectionRegistry.Entry session;
+
+  /**
+   * This connection's id in the {@link TrafficJournal}; 0 when journaling is off.
+   */
+  private final long journalId = TrafficJournal.ENABLED ? TrafficJournal.nextConnectionId() : 0;
+
+  /**
+   * Borrowed from {@link BufferPool} only while it holds unprocessed bytes; {@code null}
+   * while the connection is idle. "Fill" mode between events.
+   */
+  private ByteBuffer readBuffer;
+
+  /**
+   * Set once "quit" is seen; the connection closes after pending output drains.
+   */
+  private boolean closing;
+
+  /**
+   * Whether the event loop already holds this connection in its flush list.
+   */
+  private boolean flushScheduled;
+
+  private boolean closed;
+
+  /**
+   * {@link Metrics#now()} when the oldest unanswered request was read; 0 while no
+   * response is pending.
+   */
+  private long servingSince;
+
+  /**
+   * Creates the state for a registered channel.
+   *
+   * @param loop    the owning loop
+   * @param channel the non-blocking client channel
+   * @param key     its registration with the owning loop's selector
+   * @param framing wire format of the listener that accepted the channel
+   * @param onClose run exactly once when the connection closes (loop bookkeeping)
+   * @param tls     TLS configuration of the listener, or {@code null} for plaintext
+   */
+  EchoConnection(EventLoop loop, SocketChannel channel, SelectionKey key, Framing framing,
+      Runnable onClose, TlsContext tls) {
+    this.channel = channel;
+    this.key = key;
+    this.framing = framing;
+    this.onClose = onClose;
+    this.tls = tls == null ? null : tls.wrap(channel);
+    this.session = ConnectionRegistry.DEFAULT.register("echo",
+        channel.socket().getInetAddress(), channel.socket().getPort(),
+        () -> loop.execute(this::close));
+    Metrics.DEFAULT.connectionOpened();
+  }
+
+  /**
+   * Called by the event loop when the channel is readable.
+   *
+   * @return {@code true} if responses were queued and the connection must be added to
+   *         the loop's flush list
+   * @throws IOException if the channel fails; the caller closes the connection
+   */
+  @Override
+  public boolean onReadable() throws IOException {
+    int n;
+    do {
+      n = readAndProcess();
+      if (n < 0) {
+        return false;  // closed
+      }
+    } while (tls != null && n > 0 && !closing && tls.hasBufferedInput());
+    if (tls != null && !tls.flush()) {
+      // Handshake messages the socket did not take yet
+      key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+    }
+
+    if (servingSince == 0 && !outbound.isEmpty()) {
+      servingSince = Metrics.now();
+    }
+    if ((closing || !outbound.isEmpty()) && !flushScheduled) {
+      flushScheduled = true;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * One read from the channel, then every complete line or frame it completed.
+   *
+   * @return bytes read (0 while a TLS handshake or record is incomplete), or -1 if the
+   *         connection was closed
+   */
+  private int readAndProcess() throws IOException {
+    if (readBuffer == null) {
+      readBuffer = POOL.acquire(INITIAL_BUFFER_SIZE);
+    }
+    int n = tls == null ? channel.read(readBuffer) : tls.read(readBuffer);
+    if (n == -1) {
+      // Client closed its side (EOF). Whatever is pending cannot be acknowledged anyway.
+      close();
+      return -1;
+    }
+    Metrics.DEFAULT.bytesIn(n);
+    session.received(n);
+
+    readBuffer.flip();
+    int required = framing == Framing.LINE ? processLines() : processFrames();
+    readBuffer.compact();
+
+    if (required < 0) {
+      close();  // line too long, frame too large or malformed header
+      return -1;
+    }
+    if (readBuffer.position() == 0) {
+      // Every byte was consumed: hand the buffer back until the next read.
+      POOL.release(readBuffer);
+      readBuffer = null;
+    } else if (required > readBuffer.capacity()) {
+      readBuffer = POOL.grow(readBuffer, required);
+    }
+    return n;
+  }
+
+  /**
+   * Called by the event loop when the channel can accept more output.
+   *
+   * @throws IOException if the channel fails; the caller closes the connection
+   */
+  @Override
+  public void onWritable() throws IOException {
+    flush();
+  }
+
+  /**
+   * Flushes queued responses if the size or latency bound says so. Called by the event
+   * loop at the end of each batch for every connection in its flush list.
+   *
+   * @param now current {@link System#nanoTime()}
+   * @return {@code true} if the connection can leave the flush list
+   * @throws IOException if the channel fails; the caller closes the connection
+   */
+  @Override
+  public boolean flushIfDue(long now) throws IOException {
+    if (closed) {
+      return true;
+    }
+    if (!closing && !outbound.flushDue(now)) {
+      return false;
+    }
+    flushScheduled = false;
+    flush();
+    return true;
+  }
+
+  /**
+   * Nanoseconds until this connection's queued output must be flushed.
+   *
+   * @param now current {@link System#nanoTime()}
+   * @return time left, {@code Long.MAX_VALUE} when nothing is queued
+   */
+  @Override
+  public long nanosUntilFlush(long now) {
+    return outbound.nanosUntilDue(now);
+  }
+
+  /**
+   * Scans the readable region of {@code readBuffer} for complete lines and queues one
+   * echo response per line. Leaves {@code position} at the start of the first incomplete
+   * line.
+   *
+   * @return read buffer capacity needed to make progress, or -1 if the line is too long
+   */
+  private int processLines() {
+    int start = readBuffer.position();
+    int limit = readBuffer.limit();
+
+    int nl;
+    int lines = 0;
+    while (!closing && (nl = LineCodec.indexOf(readBuffer, start, limit, (byte) '\n')) >= 0) {
+      if (TrafficJournal.ENABLED) {
+        TrafficJournal.DEFAULT.record(journalId, readBuffer, start, nl + 1 - start);
+      }
+      int end = LineCodec.trimCr(readBuffer, start, nl);
+      if (LineCodec.isQuit(readBuffer, start, end)) {
+        closing = true;
+      } else {
+        int length = end - start;
+        LineCodec.encodeEcho(readBuffer, start, length,
+            outbound.writable(LineCodec.echoLength(length)));
+        lines++;
+      }
+      start = nl + 1;
+    }
+    readBuffer.position(start);
+    Metrics.DEFAULT.messages(lines);
+    session.messages(lines);
+
+    if (start > 0 || limit < readBuffer.capacity()) {
+      return 0;
+    }
+    // Buffer is full and holds no complete line: grow, or give up on absurd lines.
+    if (readBuffer.capacity() >= LineCodec.MAX_LINE) {
+      return -1;
+    }
+    return Math.min(readBuffer.capacity() * 2, LineCodec.MAX_LINE);
+  }
+
+  /**
+   * Echoes every complete length-prefixed frame in {@code readBuffer}. Leaves
+   * {@code position} at the header of the first incomplete frame.
+   *
+   * @return read buffer capacity needed to hold the incomplete frame, or -1 if the frame
+   *         is malformed or exceeds {@link FrameCodec#MAX_FRAME}
+   */
+  private int processFrames() {
+    int start = readBuffer.position();
+    int limit = readBuffer.limit();
+    int frames = 0;
+
+    while (true) {
+      long header = FrameCodec.readHeader(framing, readBuffer, start, limit);
+      if (header == FrameCodec.MALFORMED) {
+        return -1;
+      }
+      if (header == FrameCodec.INCOMPLETE) {
+        break;
+      }
+      int headerLength = FrameCodec.headerLengthOf(header);
+      int payloadLength = FrameCodec.payloadLengthOf(header);
+      if (payloadLength > FrameCodec.MAX_FRAME) {
+        return -1;
+      }
+      int frameLength = headerLength + payloadLength;
+      if (limit - start < frameLength) {
+        readBuffer.position(start);
+        Metrics.DEFAULT.messages(frames);
+        session.messages(frames);
+        return frameLength;  // wait for the rest; compact() moves it to the front
+      }
+      if (TrafficJournal.ENABLED) {
+        TrafficJournal.DEFAULT.record(journalId, readBuffer, start, frameLength);
+      }
+
+      FrameCodec.encodeFrame(framing, readBuffer, start + headerLength, payloadLength,
+          outbound.writable(frameLength));
+      start += frameLength;
+      frames++;
+    }
+    readBuffer.position(start);
+    Metrics.DEFAULT.messages(frames);
+    session.messages(frames);
+    return 0;
+  }
+
+  /**
+   * Writes as much queued output as the socket accepts and updates interest ops.
+   */
+  private void flush() throws IOException {
+    long queued = outbound.queuedBytes();
+    boolean drained = tls == null
+        ? outbound.flushTo(channel)
+        : outbound.flushTo(tls) && tls.flush();
+    long written = queued - outbound.queuedBytes();
+    Metrics.DEFAULT.bytesOut(written);
+    session.sent(written);
+    if (drained && servingSince != 0) {
+      Metrics.DEFAULT.echoed(0, servingSince);
+      servingSince = 0;
+    }
+
+    if (drained && closing) {
+      close();
+      return;
+    }
+
+    int ops = SelectionKey.OP_READ;
+    if (!drained) {
+      ops |= SelectionKey.OP_WRITE;
+    }
+    if (outbound.queuedBytes() > WRITE_HIGH_WATER || closing) {
+      ops &= ~SelectionKey.OP_READ;
+    }
+    key.interestOps(ops);
+  }
+
+  /**
+   * Cancels the key, closes the channel and returns borrowed buffers. Safe to call more
+   * than once.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    onClose.run();
+    ConnectionRegistry.DEFAULT.unregister(session);
+    Metrics.DEFAULT.connectionClosed();
+    POOL.release(readBuffer);
+    readBuffer = null;
+    outbound.clear();
+    if (tls != null) {
+      tls.close();  // close_notify, if the socket takes it
+    }
+    key.cancel();
+    try {
+      channel.close();
+    } catch (IOException ignored) {
+      // Nothing useful to do; the socket is gone either way.
+    }
+  }
+
+}
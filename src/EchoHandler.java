@@ -0,0 +1,125 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.Socket;
+
+/**
+ * EchoHandler - LoopingEchoServer'ın mesaj döngüsü, tek bir bağlantı için.
+ *
+ * <p>LoopingEchoServer'daki {@code readLine() → "Echo: " + message} döngüsünü
+ * {@link Runnable} olarak paketler. Böylece aynı protokol bir thread pool'a,
+ * virtual thread'e ya da herhangi bir executor'a iş olarak verilebilir.
+ *
+ * <p>Mesajlar {@code String}'e çevrilmez: {@link LineCodec} satırı byte olarak bulur ve
+ * {@code "Echo: "} prefix'i ile doğrudan çıkış buffer'ına kopyalar (decode/encode yok).
+ *
+ * <p><b>Protokol:</b>
+ * <ul>
+ *   <li>Her satır için {@code "Echo: " + satır} döner</li>
+ *   <li>{@code quit} (büyük/küçük harf fark etmez) bağlantıyı kapatır</li>
+ *   <li>EOF (client kapattı) bağlantıyı kapatır</li>
+ *   <li>Idle / yarım satır / yazılamayan cevap süresi dolunca bağlantı kapatılır
+ *       ({@link ConnectionDeadlines})</li>
+ *   <li>Shutdown'da ({@link ServerLifecycle}) elindeki satırları cevaplar, sonra kapanır</li>
+ * </ul>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class EchoHandler implements Runnable {
+
+  /**
+   * Bağlantı başına giriş/çıkış buffer boyutu (uzun satırlarda büyür).
+   */
+  private static final int BUFFER_SIZE = 8192;
+
+  /**
+   * Pipelining modu ({@code -Decho.pipelining}, varsayılan açık).
+   *
+   * <p>Client tek segment içinde yüzlerce satır gönderdiğinde (pipelining), buffer'daki
+   * BÜTÜN tam satırlar işlenir, cevaplar sırayla biriktirilir ve tek {@code write} ile
+   * gönderilir. Yarım kalan son satır bir sonraki okumayı bekler. Kapalıyken her satırın
+   * cevabı ayrı ayrı flush edilir.
+   */
+  static final boolean PIPELINING =
+      Boolean.parseBoolean(System.getProperty("echo.pipelining", "true"));
+
+  private final Socket clientSocket;
+
+  /**
+   * Oluşturulurken kaydedilir: pool kuyruğunda bekleyen bağlantılar da drain edilir.
+   */
+  private final ServerLifecycle.Connection tracked;
+
+  /**
+   * Admin listesindeki kaydı ({@code /connections}); kuyrukta beklerken de görünür ve
+   * öldürülebilir.
+   */
+  private final ConnectionRegistry.Entry session;
+
+  EchoHandler(Socket clientSocket) {
+    this.clientSocket = clientSocket;
+    this.tracked = ServerLifecycle.DEFAULT.register(clientSocket);
+    this.session = ConnectionRegistry.DEFAULT.register("echo",
+        clientSocket.getInetAddress(), clientSocket.getPort(), clientSocket);
+  }
+
+  /**
+   * Client'ı reddeder: tek satırlık mesaj gönderir ve bağlantıyı kapatır.
+   *
+   * <p>Handler hiç çalıştırılmadan (örneğin pool kuyruğu doluyken) çağrılır.
+   *
+   * @param reason client'a gönderilecek satır
+   */
+  void reject(String reason) {
+    try (Socket s = clientSocket) {
+      PrintWriter out = new PrintWriter(s.getOutputStream(), true);
+      out.println(reason);
+    } catch (IOException ignored) {
+      // Client zaten gitmiş olabilir; reddetmenin amacı bağlantıyı kapatmak.
+    }
+    tracked.close();
+    ConnectionRegistry.DEFAULT.unregister(session);
+  }
+
+  @Override
+  public void run() {
+    Metrics.DEFAULT.connectionOpened();
+    ConnectionDeadlines deadlines =
+        ConnectionDeadlines.watch(clientSocket, "client " + clientSocket.getRemoteSocketAddress());
+    try (Socket s = clientSocket) {
+      if (s.isInputShutdown()) {
+        return;  // kuyrukta beklerken server drain'e geçti; okunacak istek yok
+      }
+      LineCodec codec =
+          new LineCodec(s.getInputStream(), s.getOutputStream(), BUFFER_SIZE, deadlines, session);
+
+      // Metrics: bir flush ile cevaplanan satır sayısı ve ilk satırın okunduğu an
+      int batch = 0;
+      long batchStart = 0;
+      while (codec.readLine() && !codec.lineIsQuit()) {
+        if (batch++ == 0) {
+          batchStart = Metrics.now();
+        }
+        codec.writeEcho();
+        if (!PIPELINING || !codec.hasBufferedLine()) {
+          codec.flush();
+          Metrics.DEFAULT.echoed(batch, batchStart);
+          batch = 0;
+        }
+      }
+      codec.flush();  // pipelined lines answered before "quit" / EOF
+      if (batch > 0) {
+        Metrics.DEFAULT.echoed(batch, batchStart);
+      }
+    } catch (IOException ex) {
+      Log.warn("Client error (%s): %s", clientSocket.getInetAddress(), ex.getMessage());
+    } finally {
+      deadlines.stop();
+      tracked.close();  // socket kapandıktan sonra: drain bu bağlantıyı bitmiş sayar
+      ConnectionRegistry.DEFAULT.unregister(session);
+      Metrics.DEFAULT.connectionClosed();
+    }
+  }
+
+}
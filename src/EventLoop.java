@@ -0,0 +1,302 @@
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * EventLoop - One selector thread ("worker reactor") that owns a set of connections.
+ *
+ * <p>A {@link Selector} is not safe to register on from other threads while it is blocked
+ * in {@code select()}. Other threads therefore never touch the selector directly: they
+ * enqueue a task with {@link #execute(Runnable)} (or a channel with {@link #register})
+ * and wake the selector up. The loop thread drains the task queue between selects.</p>
+ *
+ * <h3>Loop:</h3>
+ * <pre>
+ * while (running) {
+ *   selector.select(timeout); // wakes up on I/O readiness, wakeup() or a flush deadline
+ *   runPendingTasks();        // registrations handed over by the acceptor
+ *   processSelectedKeys();    // OP_ACCEPT / OP_READ / OP_WRITE; reads only queue output
+ *   flushPending();           // one gathering write per connection that produced output
+ * }
+ * </pre>
+ *
+ * <p>What a connection does with its bytes is up to its {@link LoopConnection}; each
+ * listener carries the factory for its connections.</p>
+ *
+ * <p>Deferring writes to the end of the batch is what coalesces responses: every line a
+ * client pipelined into one segment is answered with one {@code writev}. With
+ * {@code -Dflush.max.latency.us} &gt; 0, output may wait up to that long for later batches
+ * before being flushed (see {@link OutboundQueue}).</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class EventLoop implements Runnable {
+
+  private final String name;
+  private final Selector selector;
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Live connections owned by this loop; read by the acceptor for least-loaded balancing.
+   */
+  private final AtomicInteger connections = new AtomicInteger();
+
+  /**
+   * Connections that queued output during this batch. Only touched by the loop thread.
+   */
+  private final ArrayDeque<LoopConnection> pendingFlush = new ArrayDeque<>();
+
+  private volatile boolean running = true;
+  private volatile Thread thread;
+
+  EventLoop(String name) throws IOException {
+    this.name = name;
+    this.selector = Selector.open();
+  }
+
+  /**
+   * Starts the loop on a new platform thread named after this loop.
+   *
+   * @return the started thread
+   */
+  Thread start() {
+    thread = new Thread(this, name);
+    thread.start();
+    return thread;
+  }
+
+  String name() {
+    return name;
+  }
+
+  /**
+   * Number of connections currently owned by this loop.
+   *
+   * @return live connection count
+   */
+  int connectionCount() {
+    return connections.get();
+  }
+
+  /**
+   * Runs {@code task} on the loop thread. Safe to call from any thread.
+   *
+   * @param task work that must run on this loop (e.g. touching its selector)
+   */
+  void execute(Runnable task) {
+    tasks.add(task);
+    if (Thread.currentThread() != thread) {
+      selector.wakeup();
+    }
+  }
+
+  /**
+   * Whether the caller is running on this loop's thread.
+   */
+  boolean inLoop() {
+    return Thread.currentThread() == thread;
+  }
+
+  /**
+   * Hands an accepted channel over to this loop as an {@link EchoConnection}. Safe to call
+   * from the acceptor thread.
+   *
+   * @param channel a freshly accepted channel, still unregistered
+   * @param framing wire format of the listener that accepted it
+   */
+  void register(SocketChannel channel, Framing framing) {
+    register(channel, echo(framing));
+  }
+
+  /**
+   * Hands an accepted channel over to this loop. Safe to call from the acceptor thread.
+   *
+   * @param channel a freshly accepted channel, still unregistered
+   * @param factory creates the connection's state once it is registered
+   */
+  void register(SocketChannel channel, LoopConnection.Factory factory) {
+    connections.incrementAndGet();
+    execute(() -> {
+      try {
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(factory.create(this, channel, key, connections::decrementAndGet));
+      } catch (IOException ex) {
+        connections.decrementAndGet();
+        try {
+          channel.close();
+        } catch (IOException ignored) {
+          // Registration failed; the channel is being discarded either way.
+        }
+      }
+    });
+  }
+
+  /**
+   * Accepts connections from {@code serverChannel} on this loop itself (single-reactor
+   * mode, as in {@link NioEchoServer}).
+   *
+   * @param serverChannel a bound server channel
+   * @param framing       wire format spoken by connections from this listener
+   * @throws IOException if the channel cannot be registered
+   */
+  void listen(ServerSocketChannel serverChannel, Framing framing) throws IOException {
+    listen(serverChannel, echo(framing));
+  }
+
+  /**
+   * Accepts connections from {@code serverChannel} on this loop itself.
+   *
+   * @param serverChannel a bound server channel
+   * @param factory       creates the state of every connection from this listener
+   * @throws IOException if the channel cannot be registered
+   */
+  void listen(ServerSocketChannel serverChannel, LoopConnection.Factory factory)
+      throws IOException {
+    serverChannel.configureBlocking(false);
+    serverChannel.register(selector, SelectionKey.OP_ACCEPT, factory);
+  }
+
+  /**
+   * Adds a connection that queued output outside of its own read (e.g. a delivered
+   * broadcast) to this batch's flush list. Loop thread only; the caller avoids adding
+   * the same connection twice.
+   */
+  void flushLater(LoopConnection connection) {
+    pendingFlush.add(connection);
+  }
+
+  private static LoopConnection.Factory echo(Framing framing) {
+    return (loop, channel, key, onClose) ->
+        new EchoConnection(loop, channel, key, framing, onClose, TlsContext.DEFAULT);
+  }
+
+  /**
+   * Asks the loop to exit after its current iteration.
+   */
+  void shutdown() {
+    running = false;
+    selector.wakeup();
+  }
+
+  @Override
+  public void run() {
+    thread = Thread.currentThread();
+    try (selector) {
+      while (running) {
+        long timeoutMillis = flushTimeoutMillis();
+        if (timeoutMillis == 0) {
+          selector.selectNow();
+        } else {
+          selector.select(timeoutMillis == Long.MAX_VALUE ? 0 : timeoutMillis);
+        }
+        runPendingTasks();
+        processSelectedKeys();
+        flushPending();
+      }
+      for (SelectionKey key : selector.keys()) {
+        if (key.attachment() instanceof LoopConnection connection) {
+          connection.close();
+        }
+      }
+    } catch (IOException ex) {
+      System.err.println(name + " failed: " + ex.getMessage());
+    }
+  }
+
+  private void runPendingTasks() {
+    Runnable task;
+    while ((task = tasks.poll()) != null) {
+      task.run();
+    }
+  }
+
+  private void processSelectedKeys() {
+    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+    while (keys.hasNext()) {
+      SelectionKey key = keys.next();
+      keys.remove();
+
+      if (!key.isValid()) {
+        continue;
+      }
+      if (key.isAcceptable()) {
+        acceptAll((ServerSocketChannel) key.channel(), (LoopConnection.Factory) key.attachment());
+        continue;
+      }
+      LoopConnection connection = (LoopConnection) key.attachment();
+      try {
+        if (key.isReadable() && connection.onReadable()) {
+          pendingFlush.add(connection);
+        }
+        if (key.isValid() && key.isWritable()) {
+          connection.onWritable();
+        }
+      } catch (IOException ex) {
+        connection.close();
+      }
+    }
+  }
+
+  private void acceptAll(ServerSocketChannel serverChannel, LoopConnection.Factory factory) {
+    try {
+      SocketChannel channel;
+      while ((channel = serverChannel.accept()) != null) {
+        register(channel, factory);
+      }
+    } catch (IOException ex) {
+      System.err.println(name + " accept failed: " + ex.getMessage());
+    }
+    runPendingTasks();
+  }
+
+  /**
+   * Flushes every connection whose output became due during this batch; connections that
+   * may still wait (latency bound not reached) stay in the list.
+   */
+  private void flushPending() {
+    long now = System.nanoTime();
+    for (int i = pendingFlush.size(); i > 0; i--) {
+      LoopConnection connection = pendingFlush.poll();
+      try {
+        if (!connection.flushIfDue(now)) {
+          pendingFlush.add(connection);
+        }
+      } catch (IOException ex) {
+        connection.close();
+      }
+    }
+  }
+
+  /**
+   * How long {@code select} may block before a deferred flush is due.
+   *
+   * @return 0 to poll, {@code Long.MAX_VALUE} to block indefinitely, else milliseconds
+   */
+  private long flushTimeoutMillis() {
+    if (!tasks.isEmpty()) {
+      return 0;
+    }
+    long now = System.nanoTime();
+    long nanos = Long.MAX_VALUE;
+    for (LoopConnection connection : pendingFlush) {
+      nanos = Math.min(nanos, connection.nanosUntilFlush(now));
+    }
+    if (nanos == Long.MAX_VALUE) {
+      return Long.MAX_VALUE;
+    }
+    return (nanos + 999_999) / 1_000_000;
+  }
+
+}
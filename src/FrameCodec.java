@@ -0,0 +1,129 @@
+import java.nio.ByteBuffer;
+
+/**
+ * FrameCodec - Length-prefixed binary framing ({@link Framing#INT32}, {@link Framing#VARINT}).
+ *
+ * <p>With a length prefix the receiver knows up front how many bytes belong to the frame.
+ * It never scans the payload for a delimiter and never decodes it, so a 64 KB binary
+ * payload costs one header parse plus one copy, and it may contain any byte value,
+ * including {@code '\n'}.</p>
+ *
+ * <h3>Header formats:</h3>
+ * <pre>
+ * INT32   length as 4 bytes, big-endian              (fixed 4 bytes)
+ * VARINT  7 bits per byte, low bits first, MSB = more (1 byte up to 127, max 5 bytes)
+ *         300 = 0b1_0010_1100 → [1010_1100] [0000_0010]
+ * </pre>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class FrameCodec {
+
+  /**
+   * Largest accepted payload ({@code -Dframe.max.bytes}). Bigger frames close the
+   * connection instead of growing buffers without bound.
+   */
+  static final int MAX_FRAME = Integer.getInteger("frame.max.bytes", 8 * 1024 * 1024);
+
+  /**
+   * {@link #readHeader} result when the header is not complete yet.
+   */
+  static final long INCOMPLETE = -1;
+
+  /**
+   * {@link #readHeader} result for a malformed header (varint longer than 5 bytes).
+   */
+  static final long MALFORMED = -2;
+
+  private FrameCodec() {
+  }
+
+  /**
+   * Bytes needed to encode the header for a payload of {@code length} bytes.
+   */
+  static int headerLength(Framing framing, int length) {
+    if (framing == Framing.INT32) {
+      return 4;
+    }
+    int bytes = 1;
+    while ((length >>>= 7) != 0) {
+      bytes++;
+    }
+    return bytes;
+  }
+
+  /**
+   * Parses a header starting at absolute index {@code from}, without moving the
+   * buffer's position.
+   *
+   * @return {@code (headerLength << 32) | payloadLength}, or {@link #INCOMPLETE} /
+   *         {@link #MALFORMED}
+   */
+  static long readHeader(Framing framing, ByteBuffer buf, int from, int to) {
+    if (framing == Framing.INT32) {
+      if (to - from < 4) {
+        return INCOMPLETE;
+      }
+      int length = buf.getInt(from);
+      return length < 0 ? MALFORMED : (4L << 32) | length;
+    }
+
+    int length = 0;
+    for (int i = 0; i < 5; i++) {
+      if (from + i >= to) {
+        return INCOMPLETE;
+      }
+      byte b = buf.get(from + i);
+      if (i == 4 && (b & 0x78) != 0) {
+        return MALFORMED;  // bits 3-6 of the 5th byte would be lost or turn the int negative
+      }
+      length |= (b & 0x7F) << (7 * i);
+      if (b >= 0) {
+        return ((long) (i + 1) << 32) | length;
+      }
+    }
+    return MALFORMED;
+  }
+
+  /**
+   * Header length part of a {@link #readHeader} result.
+   */
+  static int headerLengthOf(long header) {
+    return (int) (header >>> 32);
+  }
+
+  /**
+   * Payload length part of a {@link #readHeader} result.
+   */
+  static int payloadLengthOf(long header) {
+    return (int) header;
+  }
+
+  /**
+   * Writes the header for a payload of {@code length} bytes at {@code dst}'s position.
+   */
+  static void writeHeader(Framing framing, int length, ByteBuffer dst) {
+    if (framing == Framing.INT32) {
+      dst.putInt(length);
+      return;
+    }
+    while ((length & ~0x7F) != 0) {
+      dst.put((byte) ((length & 0x7F) | 0x80));
+      length >>>= 7;
+    }
+    dst.put((byte) length);
+  }
+
+  /**
+   * Writes a complete frame: header plus {@code src[offset, offset+length)}.
+   */
+  static void encodeFrame(Framing framing, ByteBuffer src, int offset, int length,
+      ByteBuffer dst) {
+    writeHeader(framing, length, dst);
+    dst.put(dst.position(), src, offset, length);
+    dst.position(dst.position() + length);
+  }
+
+}
@@ -0,0 +1,53 @@
+/**
+ * Framing - Wire formats a listener can speak.
+ *
+ * <pre>
+ * LINE    "Hello\n"                         → "Echo: Hello\n"      (text, scans every byte)
+ * INT32   [00 00 00 05] H e l l o            → same frame back     (binary, 4-byte length)
+ * VARINT  [05] H e l l o                     → same frame back     (binary, LEB128 length)
+ * </pre>
+ *
+ * <p>The format is fixed per listener (port), so no per-connection handshake is needed:
+ * a client picks the framing by picking the port.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ * @see FrameCodec
+ */
+enum Framing {
+
+  /**
+   * Newline-terminated text, the {@link LoopingEchoServer} protocol.
+   */
+  LINE,
+
+  /**
+   * 4-byte big-endian length prefix followed by that many payload bytes.
+   */
+  INT32,
+
+  /**
+   * Unsigned LEB128 (protobuf-style varint) length prefix, 1-5 bytes.
+   */
+  VARINT;
+
+  /**
+   * Parses a framing name as used in system properties ({@code line}, {@code int32},
+   * {@code varint}).
+   *
+   * @param name case-insensitive framing name
+   * @return the framing
+   * @throws IllegalArgumentException for unknown names
+   */
+  static Framing parse(String name) {
+    return switch (name.toLowerCase()) {
+      case "line" -> LINE;
+      case "int32" -> INT32;
+      case "varint" -> VARINT;
+      default -> throw new IllegalArgumentException(
+          "Unknown framing: " + name + " (expected line|int32|varint)");
+    };
+  }
+
+}
@@ -0,0 +1,328 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * JournalReplay - Re-drives traffic recorded by {@link TrafficJournal} against a server.
+ *
+ * <p>Reads the journal's segments in order and sends every recorded frame on a
+ * connection of its own: frames recorded on the same connection go out on the same
+ * replayed connection, in the same order. Each frame is sent at its recorded offset from
+ * the first frame, divided by the speed factor:</p>
+ * <pre>
+ * recorded    t=0 ms  conn 1 "ls\n"     t=40 ms conn 2 "hi\n"     t=41 ms conn 1 "pwd\n"
+ * speed=1     sent at 0 ms, 40 ms, 41 ms        (original pacing)
+ * speed=4     sent at 0 ms, 10 ms, 10.25 ms     (4x the original rate)
+ * speed=0     back to back                      (as fast as the server accepts)
+ * </pre>
+ *
+ * <p>Every replayed connection has a virtual thread that connects on its first frame,
+ * writes its frames as they come due and closes right after its last one (a first pass
+ * over the journal finds it). So about as many sockets are open as the capture had
+ * connections open at once (more when replaying faster than recorded, since connections
+ * then overlap more), and a server that stops reading from one connection only delays
+ * that connection. A second virtual thread per connection reads and discards the
+ * responses, so the server never blocks on a full send buffer.</p>
+ *
+ * <p>Sending is open loop: when the server falls behind, frames go out late instead of
+ * being thinned out, and the report shows how late (the schedule lag histogram). A
+ * connection may fall up to 1024 frames behind; past that the schedule waits for it,
+ * which keeps memory bounded when replaying unpaced.</p>
+ *
+ * <h3>Settings (system properties):</h3>
+ * <pre>
+ * -Dreplay.host=localhost   -Dreplay.port=8002
+ * -Dreplay.speed=1          time scale: 2 = twice as fast, 0 = no pacing
+ * </pre>
+ *
+ * <h3>Example:</h3>
+ * <pre>
+ * java -Djournal.dir=/tmp/journal NioEchoServer               (capture)
+ * java -Dreplay.port=8007 -Dreplay.speed=2 JournalReplay /tmp/journal
+ * </pre>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class JournalReplay {
+
+  private static final String HOST = System.getProperty("replay.host", "localhost");
+  private static final int PORT = Integer.getInteger("replay.port", 8002);
+  private static final double SPEED =
+      Double.parseDouble(System.getProperty("replay.speed", "1"));
+
+  /**
+   * Frames a connection may have waiting before the schedule waits for it.
+   */
+  private static final int QUEUE_FRAMES = 1024;
+
+  /**
+   * How long a finished connection waits for the server's last responses.
+   */
+  private static final long DRAIN_MILLIS = 2000;
+
+  private static final LongAdder sent = new LongAdder();
+  private static final LongAdder received = new LongAdder();
+  private static final LongAdder errors = new LongAdder();
+
+  private record Frame(byte[] bytes, long due, boolean last) {
+  }
+
+  /**
+   * One replayed connection: a sender thread that owns the socket from the first frame to
+   * the last, and a reader thread that discards the responses.
+   */
+  private static final class Replayed implements Runnable {
+    final long id;
+    final BlockingQueue<Frame> frames = new ArrayBlockingQueue<>(QUEUE_FRAMES);
+    final LatencyHistogram lag = new LatencyHistogram();
+    final Thread sender;
+
+    Replayed(long id) {
+      this.id = id;
+      this.sender = Thread.ofVirtual().name("replay-sender-" + id).start(this);
+    }
+
+    @Override
+    public void run() {
+      Socket socket = null;
+      OutputStream out = null;
+      Thread reader = null;
+      try {
+        Frame frame;
+        do {
+          frame = frames.take();
+          lag.record(System.nanoTime() - frame.due());
+          try {
+            if (out == null) {
+              socket = new Socket(HOST, PORT);
+              socket.setTcpNoDelay(true);
+              out = socket.getOutputStream();
+              reader = discardResponses(socket, id);
+            }
+            out.write(frame.bytes());
+            sent.add(frame.bytes().length);
+          } catch (IOException e) {
+            failed(e);
+          }
+        } while (!frame.last());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        close(socket, reader);
+      }
+    }
+  }
+
+  /**
+   * Reads the journal's records in write order, one segment mapping at a time.
+   */
+  private static final class Cursor {
+    private final List<Path> segments;
+    private int nextSegment;
+    private MappedByteBuffer segment;
+    private int pos;
+    private int payload;
+
+    long connection;
+    long recordedAt;
+    int length;
+
+    Cursor(List<Path> segments) {
+      this.segments = segments;
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return {@code false} at the end of the journal
+     */
+    boolean next() throws IOException {
+      while (true) {
+        if (segment != null && pos + TrafficJournal.RECORD_HEADER <= segment.capacity()) {
+          int size = segment.getInt(pos);
+          if (size > 0) {  // else END_OF_SEGMENT, or 0: never written (end of the journal)
+            length = segment.getInt(pos + 4);
+            connection = segment.getLong(pos + 8);
+            recordedAt = segment.getLong(pos + 16);
+            payload = pos + TrafficJournal.RECORD_HEADER;
+            pos += size;
+            return true;
+          }
+        }
+        if (nextSegment == segments.size()) {
+          return false;
+        }
+        segment = map(segments.get(nextSegment++));
+        pos = TrafficJournal.FILE_HEADER;
+      }
+    }
+
+    /**
+     * A copy of the current record's payload.
+     */
+    byte[] payload() {
+      byte[] bytes = new byte[length];
+      segment.get(payload, bytes);
+      return bytes;
+    }
+  }
+
+  /**
+   * Replay entry point.
+   *
+   * @param args the journal directory
+   * @throws Exception if the journal cannot be read
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length != 1) {
+      System.err.println("usage: java [-Dreplay.port=8002] [-Dreplay.speed=1] JournalReplay <dir>");
+      return;
+    }
+    List<Path> segments = new ArrayList<>();
+    for (Path path : TrafficJournal.segments(Path.of(args[0]))) {
+      MappedByteBuffer segment = map(path);
+      if (segment.getInt(0) == TrafficJournal.MAGIC
+          && segment.getInt(4) == TrafficJournal.VERSION) {
+        segments.add(path);
+      } else {
+        System.err.println("Skipping " + path + ": not a version "
+            + TrafficJournal.VERSION + " journal segment");
+      }
+    }
+    if (segments.isEmpty()) {
+      System.err.println("No journal segments in " + args[0]);
+      return;
+    }
+    System.out.printf("JournalReplay: %d segment(s) → %s:%d, speed %s%n",
+        segments.size(), HOST, PORT, SPEED == 0 ? "unpaced" : SPEED + "x");
+
+    // First pass: frames per connection, so each connection closes after its last one
+    Map<Long, Long> framesLeft = new HashMap<>();
+    long total = 0;
+    for (Cursor cursor = new Cursor(segments); cursor.next(); total++) {
+      framesLeft.merge(cursor.connection, 1L, Long::sum);
+    }
+    int connections = framesLeft.size();
+
+    Map<Long, Replayed> open = new HashMap<>();
+    List<Replayed> replayed = new ArrayList<>(connections);
+    long frames = 0;
+    long firstRecorded = 0;
+    long lastRecorded = 0;
+    long start = 0;
+
+    // Stops where the first pass did, even if a live journal has grown since
+    for (Cursor cursor = new Cursor(segments); frames < total && cursor.next(); ) {
+      if (frames++ == 0) {
+        firstRecorded = cursor.recordedAt;
+        start = System.nanoTime();
+      }
+      lastRecorded = cursor.recordedAt;
+      long due = SPEED == 0 ? System.nanoTime()
+          : start + (long) ((cursor.recordedAt - firstRecorded) / SPEED);
+      long wait;
+      while ((wait = due - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(wait);
+      }
+
+      Replayed target = open.get(cursor.connection);
+      if (target == null) {
+        target = new Replayed(cursor.connection);
+        open.put(cursor.connection, target);
+        replayed.add(target);
+      }
+      boolean last = framesLeft.merge(cursor.connection, -1L, Long::sum) == 0;
+      if (last) {
+        open.remove(cursor.connection);
+      }
+      target.frames.put(new Frame(cursor.payload(), due, last));
+    }
+
+    LatencyHistogram lag = new LatencyHistogram();
+    for (Replayed c : replayed) {
+      c.sender.join();
+      lag.add(c.lag);
+    }
+    long elapsed = System.nanoTime() - start;
+
+    System.out.println();
+    System.out.printf("Frames:     %,d on %,d connections, %,d bytes sent, %,d bytes received,"
+        + " errors=%d%n", frames, connections, sent.sum(), received.sum(), errors.sum());
+    System.out.printf("Duration:   recorded %.2f s, replayed %.2f s%n",
+        (lastRecorded - firstRecorded) / 1e9, elapsed / 1e9);
+    System.out.printf("Lag µs:     p50=%.1f p99=%.1f p99.9=%.1f max=%.1f"
+            + " (how late frames left vs. schedule)%n",
+        lag.percentile(50) / 1e3, lag.percentile(99) / 1e3, lag.percentile(99.9) / 1e3,
+        lag.max() / 1e3);
+  }
+
+  private static Thread discardResponses(Socket socket, long id) throws IOException {
+    InputStream in = socket.getInputStream();
+    return Thread.ofVirtual().name("replay-reader-" + id).start(() -> {
+      byte[] buf = new byte[16 * 1024];
+      try {
+        int n;
+        while ((n = in.read(buf)) != -1) {
+          received.add(n);
+        }
+      } catch (IOException ignored) {
+        // Closed by us at the end, or by the server
+      }
+    });
+  }
+
+  /**
+   * Half-closes, gives the server a moment to answer the tail, then cuts.
+   */
+  private static void close(Socket socket, Thread reader) {
+    if (socket == null) {
+      return;
+    }
+    try {
+      socket.shutdownOutput();
+      if (reader != null) {
+        reader.join(DRAIN_MILLIS);
+      }
+    } catch (IOException ignored) {
+      // Already gone; counted when its send failed
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    try {
+      socket.close();
+    } catch (IOException ignored) {
+      // Nothing left to release
+    }
+  }
+
+  private static void failed(IOException e) {
+    errors.increment();
+    if (errors.sum() == 1) {
+      System.err.println("Send failed (further failures are only counted): " + e);
+    }
+  }
+
+  private static MappedByteBuffer map(Path path) throws IOException {
+    try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+      buffer.order(TrafficJournal.ORDER);
+      return buffer;
+    }
+  }
+
+}
@@ -0,0 +1,384 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * LineCodec - Allocation-free, byte-level line framing for the echo protocol.
+ *
+ * <p>The classic {@code BufferedReader}/{@code PrintWriter} echo loop turns every message
+ * into objects:</p>
+ * <pre>
+ * bytes ─InputStreamReader─→ chars ─BufferedReader─→ String
+ *       ─"Echo: " + message─→ String ─PrintWriter─→ chars ─→ bytes
+ * </pre>
+ * <p>That is four allocations and two charset transcodes per echo, even though echo never
+ * looks at the characters. UTF-8 guarantees that byte {@code 0x0A} only ever means
+ * {@code '\n'} (multi-byte sequences use bytes &gt;= 0x80, see {@link ByteVsChar}), so
+ * lines can be found on raw bytes and echoed without decoding:</p>
+ * <pre>
+ * bytes ─scan for '\n'─→ [start, end) ─copy "Echo: " + bytes + '\n'─→ output bytes
+ * </pre>
+ *
+ * <h3>Two ways to use it:</h3>
+ * <ul>
+ *   <li><strong>Static helpers</strong> on {@link ByteBuffer} for the non-blocking
+ *       engines ({@link EchoConnection}).</li>
+ *   <li><strong>An instance</strong> wrapping a blocking {@link InputStream}/
+ *       {@link OutputStream} pair for the blocking servers ({@link EchoHandler},
+ *       {@link LoopingEchoServer}, {@link SequentialEchoServer}). It owns one reusable
+ *       input and one reusable output array, so steady-state echo allocates nothing.</li>
+ * </ul>
+ *
+ * <p>Instances are not thread-safe; one per connection.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class LineCodec {
+
+  /**
+   * Bytes prepended to every echoed line, encoded once.
+   */
+  static final byte[] ECHO_PREFIX = "Echo: ".getBytes(StandardCharsets.US_ASCII);
+
+  private static final byte[] QUIT = "quit".getBytes(StandardCharsets.US_ASCII);
+
+  /**
+   * Longest accepted line, in bytes.
+   */
+  static final int MAX_LINE = 64 * 1024;
+
+  private final InputStream in;
+  private final OutputStream out;
+
+  /**
+   * Told before every blocking read and write; {@code null} if the caller enforces no
+   * timeouts.
+   */
+  private final ConnectionDeadlines deadlines;
+
+  /**
+   * Per-connection stats in the {@link ConnectionRegistry}; {@code null} if unregistered.
+   */
+  private final ConnectionRegistry.Entry session;
+
+  /**
+   * This connection's id in the {@link TrafficJournal}; 0 when journaling is off.
+   */
+  private final long journalId = TrafficJournal.ENABLED ? TrafficJournal.nextConnectionId() : 0;
+
+  private byte[] inBuf;
+  private int inPos;
+  private int inLimit;
+
+  private byte[] outBuf;
+  private int outPos;
+
+  private int lineStart;
+  private int lineEnd;
+
+  /**
+   * Index of the next {@code '\n'} found by {@link #hasBufferedLine()}, or -1. Saves
+   * {@link #readLine()} from scanning the same bytes twice.
+   */
+  private int nextNewline = -1;
+
+  /**
+   * Creates a codec over a blocking stream pair.
+   *
+   * @param in         raw socket input (no extra buffering needed)
+   * @param out        raw socket output (no extra buffering needed)
+   * @param bufferSize initial size of the input and output arrays
+   */
+  LineCodec(InputStream in, OutputStream out, int bufferSize) {
+    this(in, out, bufferSize, null);
+  }
+
+  /**
+   * Creates a codec whose blocking calls are guarded by idle, read and write deadlines.
+   *
+   * @param in         raw socket input (no extra buffering needed)
+   * @param out        raw socket output (no extra buffering needed)
+   * @param bufferSize initial size of the input and output arrays
+   * @param deadlines  the connection's deadlines, or {@code null}
+   */
+  LineCodec(InputStream in, OutputStream out, int bufferSize, ConnectionDeadlines deadlines) {
+    this(in, out, bufferSize, deadlines, null);
+  }
+
+  /**
+   * Creates a codec that also counts bytes and lines into the connection's registry entry.
+   *
+   * @param in         raw socket input (no extra buffering needed)
+   * @param out        raw socket output (no extra buffering needed)
+   * @param bufferSize initial size of the input and output arrays
+   * @param deadlines  the connection's deadlines, or {@code null}
+   * @param session    the connection's {@link ConnectionRegistry} entry, or {@code null}
+   */
+  LineCodec(InputStream in, OutputStream out, int bufferSize, ConnectionDeadlines deadlines,
+      ConnectionRegistry.Entry session) {
+    this.in = in;
+    this.out = out;
+    this.deadlines = deadlines;
+    this.session = session;
+    this.inBuf = new byte[bufferSize];
+    this.outBuf = new byte[bufferSize];
+  }
+
+  // ─────────────────────────────────────────────────────────────────────────
+  // Blocking stream API
+  // ─────────────────────────────────────────────────────────────────────────
+
+  /**
+   * Advances to the next line, reading from the stream only when no complete line is
+   * buffered. Like {@code BufferedReader.readLine()}, a final line without {@code '\n'}
+   * is still returned at EOF, and a trailing {@code '\r'} is stripped.
+   *
+   * @return {@code true} if a line is available, {@code false} at end of stream
+   * @throws IOException if reading fails or a line exceeds {@link #MAX_LINE}
+   */
+  boolean readLine() throws IOException {
+    int scanFrom = inPos;
+    while (true) {
+      int nl = nextNewline >= 0 ? nextNewline : indexOf(inBuf, scanFrom, inLimit, (byte) '\n');
+      nextNewline = -1;
+      if (nl >= 0) {
+        if (TrafficJournal.ENABLED) {
+          TrafficJournal.DEFAULT.record(journalId, inBuf, inPos, nl + 1 - inPos);
+        }
+        setLine(inPos, nl);
+        inPos = nl + 1;
+        if (deadlines != null) {
+          deadlines.busy();
+        }
+        if (session != null) {
+          session.messages(1);
+        }
+        return true;
+      }
+      scanFrom = inLimit;
+
+      // No newline buffered: make room, then block for more bytes.
+      if (inPos > 0) {
+        int pending = inLimit - inPos;
+        System.arraycopy(inBuf, inPos, inBuf, 0, pending);
+        scanFrom -= inPos;
+        inPos = 0;
+        inLimit = pending;
+      }
+      if (inLimit == inBuf.length) {
+        if (inBuf.length >= MAX_LINE) {
+          throw new IOException("Line exceeds " + MAX_LINE + " bytes");
+        }
+        byte[] bigger = new byte[Math.min(inBuf.length * 2, MAX_LINE)];
+        System.arraycopy(inBuf, 0, bigger, 0, inLimit);
+        inBuf = bigger;
+      }
+
+      if (deadlines != null) {
+        // A started line must complete within the read deadline, however slowly it trickles
+        if (inLimit > inPos) {
+          deadlines.reading();
+        } else {
+          deadlines.idle();
+        }
+      }
+      int n = in.read(inBuf, inLimit, inBuf.length - inLimit);
+      if (n == -1) {
+        if (inLimit > inPos) {
+          if (TrafficJournal.ENABLED) {
+            TrafficJournal.DEFAULT.record(journalId, inBuf, inPos, inLimit - inPos);
+          }
+          setLine(inPos, inLimit);
+          inPos = inLimit;
+          return true;
+        }
+        return false;
+      }
+      Metrics.DEFAULT.bytesIn(n);
+      if (session != null) {
+        session.received(n);
+      }
+      inLimit += n;
+    }
+  }
+
+  /**
+   * Whether another complete line is already buffered, i.e. whether the next
+   * {@link #readLine()} will return without touching the socket.
+   *
+   * <p>Pipelining servers use this to decide when to flush: keep appending responses
+   * while lines are buffered, and write them all at once right before a read that could
+   * block.</p>
+   *
+   * @return {@code true} if a {@code '\n'} follows the current line in the buffer
+   */
+  boolean hasBufferedLine() {
+    if (nextNewline < 0) {
+      nextNewline = indexOf(inBuf, inPos, inLimit, (byte) '\n');
+    }
+    return nextNewline >= 0;
+  }
+
+  private void setLine(int start, int end) {
+    if (end > start && inBuf[end - 1] == '\r') {
+      end--;  // telnet / Windows clients send CRLF
+    }
+    lineStart = start;
+    lineEnd = end;
+  }
+
+  /**
+   * Whether the current line is {@code quit}, ignoring ASCII case.
+   *
+   * @return {@code true} for "quit", "QUIT", "Quit", ...
+   */
+  boolean lineIsQuit() {
+    return isQuit(inBuf, lineStart, lineEnd);
+  }
+
+  /**
+   * The current line decoded as UTF-8, for console output. Allocates; the echo path never
+   * calls it.
+   */
+  String lineAsString() {
+    return new String(inBuf, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Appends {@code "Echo: " + line + '\n'} for the current line to the output array.
+   * Nothing is sent until {@link #flush()}.
+   */
+  void writeEcho() {
+    int length = lineEnd - lineStart;
+    ensureOutCapacity(ECHO_PREFIX.length + length + 1);
+    System.arraycopy(ECHO_PREFIX, 0, outBuf, outPos, ECHO_PREFIX.length);
+    outPos += ECHO_PREFIX.length;
+    System.arraycopy(inBuf, lineStart, outBuf, outPos, length);
+    outPos += length;
+    outBuf[outPos++] = '\n';
+  }
+
+  /**
+   * Sends all buffered output with a single {@code write} call.
+   *
+   * @throws IOException if writing fails
+   */
+  void flush() throws IOException {
+    if (outPos > 0) {
+      if (deadlines != null) {
+        deadlines.writing();
+      }
+      out.write(outBuf, 0, outPos);
+      if (deadlines != null) {
+        deadlines.busy();
+      }
+      Metrics.DEFAULT.bytesOut(outPos);
+      if (session != null) {
+        session.sent(outPos);
+      }
+      outPos = 0;
+    }
+  }
+
+  private void ensureOutCapacity(int needed) {
+    if (outBuf.length - outPos < needed) {
+      byte[] bigger = new byte[Math.max(outBuf.length * 2, outPos + needed)];
+      System.arraycopy(outBuf, 0, bigger, 0, outPos);
+      outBuf = bigger;
+    }
+  }
+
+  // ─────────────────────────────────────────────────────────────────────────
+  // Static helpers (arrays and ByteBuffers)
+  // ─────────────────────────────────────────────────────────────────────────
+
+  /**
+   * Index of the first {@code b} in {@code a[from, to)}, or -1.
+   */
+  static int indexOf(byte[] a, int from, int to, byte b) {
+    for (int i = from; i < to; i++) {
+      if (a[i] == b) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Index of the first {@code b} in {@code buf[from, to)} (absolute indexes), or -1.
+   */
+  static int indexOf(ByteBuffer buf, int from, int to, byte b) {
+    if (buf.hasArray()) {
+      int base = buf.arrayOffset();
+      int i = indexOf(buf.array(), base + from, base + to, b);
+      return i < 0 ? -1 : i - base;
+    }
+    for (int i = from; i < to; i++) {
+      if (buf.get(i) == b) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * End index of the line {@code [start, end)} with a trailing {@code '\r'} removed.
+   */
+  static int trimCr(ByteBuffer buf, int start, int end) {
+    return end > start && buf.get(end - 1) == '\r' ? end - 1 : end;
+  }
+
+  /**
+   * Whether {@code a[start, end)} is "quit" in any ASCII case.
+   */
+  static boolean isQuit(byte[] a, int start, int end) {
+    if (end - start != QUIT.length) {
+      return false;
+    }
+    for (int i = 0; i < QUIT.length; i++) {
+      // OR-ing 0x20 lower-cases ASCII letters; only 'Q' and 'q' map to 'q'.
+      if ((a[start + i] | 0x20) != QUIT[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Whether {@code buf[start, end)} (absolute indexes) is "quit" in any ASCII case.
+   */
+  static boolean isQuit(ByteBuffer buf, int start, int end) {
+    if (end - start != QUIT.length) {
+      return false;
+    }
+    for (int i = 0; i < QUIT.length; i++) {
+      if ((buf.get(start + i) | 0x20) != QUIT[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Bytes needed to echo a line of {@code length} bytes.
+   */
+  static int echoLength(int length) {
+    return ECHO_PREFIX.length + length + 1;
+  }
+
+  /**
+   * Writes {@code "Echo: " + src[offset, offset+length) + '\n'} at {@code dst}'s position.
+   * The caller guarantees {@link #echoLength(int)} bytes of room.
+   */
+  static void encodeEcho(ByteBuffer src, int offset, int length, ByteBuffer dst) {
+    dst.put(ECHO_PREFIX);
+    dst.put(dst.position(), src, offset, length);
+    dst.position(dst.position() + length);
+    dst.put((byte) '\n');
+  }
+
+}
@@ -0,0 +1,486 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * LoadGenerator - Load-testing client with tail-latency reporting for every server here.
+ *
+ * <p>Opens N connections to one server, drives requests over them, and reports throughput
+ * and the latency distribution (p50 … max) from a {@link LatencyHistogram}. Each connection
+ * has a writer and a reader (virtual threads), so requests can be pipelined.</p>
+ *
+ * <h3>Closed loop vs open loop:</h3>
+ * <pre>
+ * closed  each connection keeps "pipeline" requests outstanding and sends the next one
+ *         when a response arrives. Measures maximum throughput. When the server stalls,
+ *         the client stops sending too, so the stall shows up as ONE slow request.
+ *
+ * open    requests are scheduled at a fixed total "rate", whether or not responses came
+ *         back. Latency is measured from the INTENDED send time, so a 1 s stall also
+ *         counts against every request that should have been sent during it.
+ * </pre>
+ * <p>Measuring from the actual send time in a closed loop is the "coordinated
+ * omission" problem: the client politely waits for the server, and the histogram never
+ * sees the requests that real users would have sent meanwhile. Use open loop to compare
+ * tail latency between server models.</p>
+ *
+ * <h3>Protocols:</h3>
+ * <pre>
+ * line      "xxxx\n" → one line back                 (8001, 8002, 8004-8007)
+ * int32     [len:4] payload → one frame back          (-Dframed.port, framed.format=int32)
+ * varint    [len:1-5] payload → one frame back        (-Dframed.port, framed.format=varint)
+ * terminal  "command\n" → output up to the "$ " prompt (8003)
+ * </pre>
+ *
+ * <h3>Settings (system properties):</h3>
+ * <pre>
+ * -Dload.host=localhost        -Dload.port=8002
+ * -Dload.protocol=line         line | int32 | varint | terminal
+ * -Dload.connections=16        concurrent connections
+ * -Dload.mode=closed           closed | open
+ * -Dload.pipeline=1            outstanding requests per connection (closed loop)
+ * -Dload.rate=10000            total requests per second (open loop)
+ * -Dload.size=64               payload bytes per request (line / frames)
+ * -Dload.command="echo hi"     command per request (terminal)
+ * -Dload.duration.s=10         measured seconds, after
+ * -Dload.warmup.s=2            warm-up seconds (not recorded)
+ * -Dload.requests=0            requests per connection, 0 = until duration ends
+ * </pre>
+ *
+ * <h3>Examples:</h3>
+ * <pre>
+ * java -Dload.port=8006 -Dload.connections=64 -Dload.pipeline=16 LoadGenerator
+ * java -Dload.port=8007 -Dload.mode=open -Dload.rate=100000 LoadGenerator
+ * java -Dload.port=8003 -Dload.protocol=terminal -Dload.connections=4 LoadGenerator
+ * java -Dload.port=8001 -Dload.connections=1 -Dload.requests=1 -Dload.warmup.s=0 LoadGenerator
+ * </pre>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class LoadGenerator {
+
+  private static final String HOST = System.getProperty("load.host", "localhost");
+  private static final int PORT = Integer.getInteger("load.port", 8002);
+  private static final String PROTOCOL = System.getProperty("load.protocol", "line");
+  private static final int CONNECTIONS = Integer.getInteger("load.connections", 16);
+  private static final boolean OPEN_LOOP =
+      System.getProperty("load.mode", "closed").equalsIgnoreCase("open");
+  private static final int PIPELINE = Integer.getInteger("load.pipeline", 1);
+  private static final int RATE = Integer.getInteger("load.rate", 10_000);
+  private static final int SIZE = Integer.getInteger("load.size", 64);
+  private static final String COMMAND = System.getProperty("load.command", "echo hi");
+  private static final int DURATION_S = Integer.getInteger("load.duration.s", 10);
+  private static final int WARMUP_S = Integer.getInteger("load.warmup.s", 2);
+  private static final long REQUESTS = Long.getLong("load.requests", 0);
+
+  /**
+   * Open loop: most requests in flight per connection before the writer waits.
+   */
+  private static final int OPEN_LOOP_WINDOW = 1 << 16;
+
+  private static final LongAdder responses = new LongAdder();
+  private static final LongAdder errors = new LongAdder();
+  private static volatile boolean running = true;
+
+  /**
+   * Load generator entry point.
+   *
+   * @param args not used; see the class documentation for settings
+   * @throws Exception if the run cannot be set up
+   */
+  public static void main(String[] args) throws Exception {
+    byte[] request = encodeRequest();
+    System.out.printf("LoadGenerator: %s @ %s:%d, %d connections, %s, %s%n",
+        PROTOCOL, HOST, PORT, CONNECTIONS,
+        OPEN_LOOP ? "open loop @ " + RATE + " req/s" : "closed loop, pipeline " + PIPELINE,
+        PROTOCOL.equals("terminal") ? "\"" + COMMAND + "\"" : SIZE + " B payload");
+
+    long start = System.nanoTime();
+    long measureFrom = start + WARMUP_S * 1_000_000_000L;
+    long measureTo = measureFrom + DURATION_S * 1_000_000_000L;
+
+    List<Connection> connections = new ArrayList<>();
+    for (int i = 0; i < CONNECTIONS; i++) {
+      try {
+        Connection c = new Connection(i, request, start, measureFrom, measureTo);
+        connections.add(c);
+      } catch (IOException e) {
+        errors.increment();
+        System.err.println("Connect failed: " + e.getMessage());
+      }
+    }
+    if (connections.isEmpty()) {
+      System.err.println("No connections; is a server listening on " + HOST + ":" + PORT + "?");
+      return;
+    }
+    for (Connection c : connections) {
+      c.start();
+    }
+
+    // Progress once per second until the measured window ends or all connections are done
+    long last = 0;
+    for (int second = 1; System.nanoTime() < measureTo; second++) {
+      long wakeAt = start + second * 1_000_000_000L;
+      LockSupport.parkNanos(Math.max(0, wakeAt - System.nanoTime()));
+      long now = responses.sum();
+      System.out.printf("[%3ds]%s %,12d resp/s%n", second,
+          System.nanoTime() <= measureFrom ? " warmup" : "       ", now - last);
+      last = now;
+      if (connections.stream().noneMatch(Connection::isActive)) {
+        break;
+      }
+    }
+
+    // Stop sending, give outstanding responses a moment, then cut everything
+    running = false;
+    long drainUntil = System.nanoTime() + 2_000_000_000L;
+    for (Connection c : connections) {
+      c.awaitDrained(drainUntil);
+      c.close();
+    }
+
+    report(connections, Math.min(System.nanoTime(), measureTo) - measureFrom);
+  }
+
+  private static void report(List<Connection> connections, long measuredNanos) {
+    LatencyHistogram all = new LatencyHistogram();
+    long sent = 0;
+    long received = 0;
+    for (Connection c : connections) {
+      all.add(c.histogram);
+      sent += c.sent;
+      received += c.received;
+    }
+
+    double seconds = Math.max(measuredNanos, 1) / 1e9;
+    System.out.println();
+    System.out.printf("Requests:   sent=%,d received=%,d unanswered=%,d errors=%d%n",
+        sent, received, sent - received, errors.sum());
+    System.out.printf("Throughput: %,.0f resp/s (measured window, %.1f s)%n",
+        all.count() / seconds, seconds);
+    System.out.printf("Latency µs: min=%.1f p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f"
+            + " p99.99=%.1f max=%.1f mean=%.1f%n",
+        all.min() / 1e3, all.percentile(50) / 1e3, all.percentile(90) / 1e3,
+        all.percentile(99) / 1e3, all.percentile(99.9) / 1e3, all.percentile(99.99) / 1e3,
+        all.max() / 1e3, all.mean() / 1e3);
+    if (!OPEN_LOOP) {
+      System.out.println("(closed loop: latency is measured from the actual send time;"
+          + " use -Dload.mode=open for coordinated-omission-free tails)");
+    }
+  }
+
+  private static byte[] encodeRequest() {
+    byte[] payload = new byte[SIZE];
+    Arrays.fill(payload, (byte) 'x');
+    return switch (PROTOCOL) {
+      case "line" -> {
+        byte[] line = Arrays.copyOf(payload, SIZE + 1);
+        line[SIZE] = '\n';
+        yield line;
+      }
+      case "int32", "varint" -> {
+        Framing framing = Framing.parse(PROTOCOL);
+        ByteBuffer frame = ByteBuffer.allocate(FrameCodec.headerLength(framing, SIZE) + SIZE);
+        FrameCodec.encodeFrame(framing, ByteBuffer.wrap(payload), 0, SIZE, frame);
+        yield frame.array();
+      }
+      case "terminal" -> (COMMAND + "\n").getBytes(StandardCharsets.UTF_8);
+      default -> throw new IllegalArgumentException(
+          "Unknown protocol: " + PROTOCOL + " (expected line|int32|varint|terminal)");
+    };
+  }
+
+  private static ResponseParser newParser() {
+    return switch (PROTOCOL) {
+      case "terminal" -> new PromptParser();
+      case "int32", "varint" -> new FrameParser(Framing.parse(PROTOCOL));
+      default -> new LineParser();
+    };
+  }
+
+  // ─────────────────────────────────────────────────────────────────────────
+  // One connection: writer + reader
+  // ─────────────────────────────────────────────────────────────────────────
+
+  private static final class Connection {
+
+    private final int id;
+    private final byte[] request;
+    private final long start;
+    private final long measureFrom;
+    private final long measureTo;
+
+    private final Socket socket;
+    private final OutputStream out;
+    private final InputStream in;
+    private final ResponseParser parser = newParser();
+    private final SendTimes sendTimes;
+    private final Semaphore window;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    private Thread writer;
+    private Thread reader;
+    private volatile long sent;
+    private volatile long received;
+
+    Connection(int id, byte[] request, long start, long measureFrom, long measureTo)
+        throws IOException {
+      this.id = id;
+      this.request = request;
+      this.start = start;
+      this.measureFrom = measureFrom;
+      this.measureTo = measureTo;
+      this.socket = new Socket(HOST, PORT);
+      socket.setTcpNoDelay(true);
+      this.out = socket.getOutputStream();
+      this.in = socket.getInputStream();
+      int capacity = OPEN_LOOP ? OPEN_LOOP_WINDOW : PIPELINE;
+      this.sendTimes = new SendTimes(capacity);
+      this.window = new Semaphore(capacity);
+    }
+
+    void start() {
+      writer = Thread.ofVirtual().name("load-writer-" + id).start(this::write);
+      reader = Thread.ofVirtual().name("load-reader-" + id).start(this::read);
+    }
+
+    boolean isActive() {
+      return reader.isAlive();
+    }
+
+    /**
+     * Writer: closed loop waits for a free pipeline slot; open loop waits for the next
+     * scheduled send time and stamps the request with that time, not with "now".
+     */
+    private void write() {
+      long interval = OPEN_LOOP ? (long) (1e9 * CONNECTIONS / RATE) : 0;
+      // Spread connections over one interval so they do not all fire together
+      long next = start + (OPEN_LOOP ? ThreadLocalRandom.current().nextLong(interval + 1) : 0);
+      try {
+        while (running && (REQUESTS == 0 || sent < REQUESTS)) {
+          window.acquire();
+          long stamp;
+          if (OPEN_LOOP) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+              LockSupport.parkNanos(wait);
+            }
+            stamp = next;
+            next += interval;
+          } else {
+            stamp = System.nanoTime();
+          }
+          sendTimes.add(stamp);
+          out.write(request);
+          sent++;
+        }
+      } catch (IOException | InterruptedException e) {
+        if (running) {
+          errors.increment();
+        }
+      }
+    }
+
+    /**
+     * Reader: every complete response ends the oldest outstanding request.
+     */
+    private void read() {
+      byte[] buf = new byte[64 * 1024];
+      try {
+        int n;
+        while ((REQUESTS == 0 || received < REQUESTS) && (n = in.read(buf)) != -1) {
+          int complete = parser.feed(buf, 0, n);
+          long now = System.nanoTime();
+          for (int i = 0; i < complete; i++) {
+            long sentAt = sendTimes.remove();
+            if (sentAt >= measureFrom && sentAt < measureTo) {
+              histogram.record(now - sentAt);
+            }
+            window.release();
+          }
+          received += complete;
+          responses.add(complete);
+        }
+      } catch (IOException e) {
+        if (running) {
+          errors.increment();
+        }
+      }
+    }
+
+    void awaitDrained(long deadline) throws InterruptedException {
+      while (received < sent && reader.isAlive() && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+    }
+
+    void close() throws InterruptedException {
+      try {
+        socket.close();
+      } catch (IOException e) {
+        // Closing anyway
+      }
+      writer.interrupt();  // may be waiting for a pipeline slot that never frees
+      writer.join();
+      reader.join();
+    }
+  }
+
+  /**
+   * Single-producer/single-consumer ring of send timestamps, oldest first. Responses
+   * arrive in request order on one connection, so the oldest stamp belongs to the next
+   * response. Capacity is enforced by the connection's window semaphore.
+   */
+  private static final class SendTimes {
+
+    private final long[] stamps;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    SendTimes(int capacity) {
+      int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+      this.stamps = new long[size];
+      this.mask = size - 1;
+    }
+
+    void add(long stamp) {
+      long t = tail.get();
+      stamps[(int) (t & mask)] = stamp;
+      tail.lazySet(t + 1);
+    }
+
+    long remove() {
+      // The response can only exist after add(); wait out the publication race.
+      while (head == tail.get()) {
+        Thread.onSpinWait();
+      }
+      return stamps[(int) (head++ & mask)];
+    }
+  }
+
+  // ─────────────────────────────────────────────────────────────────────────
+  // Response framing
+  // ─────────────────────────────────────────────────────────────────────────
+
+  /**
+   * Counts complete responses in a stream of received bytes.
+   */
+  private interface ResponseParser {
+
+    /**
+     * @return number of responses completed by {@code buf[off, off+len)}
+     */
+    int feed(byte[] buf, int off, int len);
+  }
+
+  /**
+   * One {@code '\n'}-terminated line per response.
+   */
+  private static final class LineParser implements ResponseParser {
+
+    @Override
+    public int feed(byte[] buf, int off, int len) {
+      int lines = 0;
+      for (int i = off; i < off + len; i++) {
+        if (buf[i] == '\n') {
+          lines++;
+        }
+      }
+      return lines;
+    }
+  }
+
+  /**
+   * Terminal output up to and including the {@code "$ "} prompt line. The banner has no
+   * prompt line, so it is skipped without special handling.
+   */
+  private static final class PromptParser implements ResponseParser {
+
+    private int lineLength;
+    private boolean promptSoFar = true;
+
+    @Override
+    public int feed(byte[] buf, int off, int len) {
+      int prompts = 0;
+      for (int i = off; i < off + len; i++) {
+        byte b = buf[i];
+        if (b == '\n') {
+          if (promptSoFar && lineLength == 2) {
+            prompts++;
+          }
+          lineLength = 0;
+          promptSoFar = true;
+        } else {
+          promptSoFar &= lineLength < 2 && b == (lineLength == 0 ? '$' : ' ');
+          lineLength++;
+        }
+      }
+      return prompts;
+    }
+  }
+
+  /**
+   * Length-prefixed frames ({@link FrameCodec} formats).
+   */
+  private static final class FrameParser implements ResponseParser {
+
+    private final Framing framing;
+    private int headerBytes;
+    private int length;
+    private int payloadLeft = -1;
+
+    FrameParser(Framing framing) {
+      this.framing = framing;
+    }
+
+    @Override
+    public int feed(byte[] buf, int off, int len) {
+      int frames = 0;
+      int i = off;
+      int end = off + len;
+      while (i < end) {
+        if (payloadLeft < 0) {
+          // Header, one byte at a time (it may be split across reads)
+          int b = buf[i++] & 0xFF;
+          if (framing == Framing.INT32) {
+            length = (length << 8) | b;
+            if (++headerBytes < 4) {
+              continue;
+            }
+          } else {
+            length |= (b & 0x7F) << (7 * headerBytes++);
+            if ((b & 0x80) != 0) {
+              continue;
+            }
+          }
+          payloadLeft = length;
+          headerBytes = 0;
+          length = 0;
+        }
+        int skip = Math.min(payloadLeft, end - i);
+        i += skip;
+        payloadLeft -= skip;
+        if (payloadLeft == 0) {
+          frames++;
+          payloadLeft = -1;
+        }
+      }
+      return frames;
+    }
+  }
+
+}
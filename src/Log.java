@@ -0,0 +1,262 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log - Asynchronous, leveled logging through a bounded ring buffer and one writer thread.
+ *
+ * <p>{@code System.out.println} is synchronized and writes straight to the terminal: every
+ * server thread that logs a message waits for the console, one at a time. Logging every
+ * echoed line that way caps throughput at console speed. Here the calling thread only
+ * claims a ring slot and stores the event; formatting and I/O happen on the writer:</p>
+ * <pre>
+ * server threads                 ring (bounded, lock-free)          log-writer thread
+ *   Log.debug("Received: %s", m)  ┌───┬───┬───┬───┬───┐
+ *     level off? → return         │ e │ e │ e │   │   │ ──poll──→  String.format
+ *     ring full? → dropped++      └───┴───┴───┴───┴───┘             buffered write
+ *     else claim slot (CAS)                                         flush when idle
+ * </pre>
+ *
+ * <h3>Behavior under load:</h3>
+ * <ul>
+ *   <li><strong>Levels</strong> - {@code -Dlog.level=error|warn|info|debug} (default
+ *       {@code info}). Per-message logs are {@code debug}, so they cost one comparison in
+ *       production.</li>
+ *   <li><strong>Drops</strong> - when the writer cannot keep up and the ring
+ *       ({@code -Dlog.buffer}, default 8192 events) is full, new events are dropped and
+ *       counted instead of blocking the server. The writer reports the count as soon as
+ *       it catches up, so a gap in the log is never silent.</li>
+ *   <li><strong>Formatting</strong> - templates use {@link String#format} syntax and are
+ *       formatted on the writer thread, so arguments must be immutable (strings, numbers,
+ *       addresses).</li>
+ * </ul>
+ *
+ * <p>{@code warn} and {@code error} go to standard error, the rest to standard output.
+ * Events still in the ring are written by a shutdown hook.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class Log {
+
+  enum Level { ERROR, WARN, INFO, DEBUG }
+
+  static final Level LEVEL =
+      Level.valueOf(System.getProperty("log.level", "info").toUpperCase());
+
+  private static final int CAPACITY =
+      Integer.highestOneBit(Math.max(2, Integer.getInteger("log.buffer", 8192)));
+
+  /**
+   * How long the idle writer sleeps before re-checking the ring if nobody wakes it.
+   */
+  private static final long IDLE_PARK_NANOS = 100_000_000L;
+
+  private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+
+  private static final Log INSTANCE = new Log();
+
+  private record Event(long millis, Level level, String thread, String template,
+                       Object[] args) {
+  }
+
+  /*
+   * Bounded multi-producer ring (Vyukov). Slot i is free for the producer claiming
+   * position p when sequences[i] == p, and holds an event for the consumer at position
+   * p when sequences[i] == p + 1.
+   */
+  private final Event[] slots = new Event[CAPACITY];
+  private final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+  private final AtomicLong tail = new AtomicLong();
+  private long head;  // writer thread only
+
+  private final LongAdder dropped = new LongAdder();
+  private long droppedReported;  // writer thread only
+
+  private final PrintStream stdout = stream(FileDescriptor.out);
+  private final PrintStream stderr = stream(FileDescriptor.err);
+
+  private final Thread writer;
+  private volatile boolean sleeping;
+
+  private Log() {
+    for (int i = 0; i < CAPACITY; i++) {
+      sequences.set(i, i);
+    }
+    writer = Thread.ofPlatform().name("log-writer").daemon().start(this::drainLoop);
+    try {
+      Runtime.getRuntime().addShutdownHook(new Thread(this::drainAll, "log-flush"));
+    } catch (IllegalStateException e) {
+      // First used by another shutdown hook; that hook calls flush() itself
+    }
+  }
+
+  private static PrintStream stream(FileDescriptor fd) {
+    // Not System.out: that one flushes on every println, this one when the ring is empty
+    return new PrintStream(new FileOutputStream(fd), false, StandardCharsets.UTF_8);
+  }
+
+  // ─────────────────────────────────────────────────────────────────────────
+  // Logging API
+  // ─────────────────────────────────────────────────────────────────────────
+
+  /**
+   * Whether events at {@code level} are logged; guard expensive arguments with it.
+   */
+  static boolean enabled(Level level) {
+    return level.compareTo(LEVEL) <= 0;
+  }
+
+  static void error(String template, Object... args) {
+    log(Level.ERROR, template, args);
+  }
+
+  static void warn(String template, Object... args) {
+    log(Level.WARN, template, args);
+  }
+
+  static void info(String template, Object... args) {
+    log(Level.INFO, template, args);
+  }
+
+  static void debug(String template, Object... args) {
+    log(Level.DEBUG, template, args);
+  }
+
+  /**
+   * Writes everything queued so far before returning. For shutdown paths that log
+   * their last words while the JVM is exiting.
+   */
+  static void flush() {
+    INSTANCE.drainAll();
+  }
+
+  /**
+   * Events dropped so far because the ring was full.
+   */
+  static long dropped() {
+    return INSTANCE.dropped.sum();
+  }
+
+  private static void log(Level level, String template, Object[] args) {
+    if (enabled(level)) {
+      Thread current = Thread.currentThread();
+      String thread = current.getName().isEmpty()
+          ? "virtual-" + current.threadId()  // virtual threads are unnamed by default
+          : current.getName();
+      INSTANCE.offer(new Event(System.currentTimeMillis(), level, thread, template, args));
+    }
+  }
+
+  // ─────────────────────────────────────────────────────────────────────────
+  // Ring buffer
+  // ─────────────────────────────────────────────────────────────────────────
+
+  private void offer(Event event) {
+    long pos = tail.get();
+    while (true) {
+      int index = (int) pos & (CAPACITY - 1);
+      long diff = sequences.get(index) - pos;
+      if (diff == 0) {
+        if (tail.compareAndSet(pos, pos + 1)) {
+          slots[index] = event;
+          sequences.set(index, pos + 1);  // publishes the slot to the writer
+          if (sleeping) {
+            LockSupport.unpark(writer);
+          }
+          return;
+        }
+        pos = tail.get();
+      } else if (diff < 0) {
+        dropped.increment();  // the writer has not freed this slot yet: ring is full
+        return;
+      } else {
+        pos = tail.get();  // another producer took this position
+      }
+    }
+  }
+
+  private Event poll() {
+    int index = (int) head & (CAPACITY - 1);
+    if (sequences.get(index) != head + 1) {
+      return null;
+    }
+    Event event = slots[index];
+    slots[index] = null;
+    sequences.set(index, head + CAPACITY);  // free for the producer one lap later
+    head++;
+    return event;
+  }
+
+  // ─────────────────────────────────────────────────────────────────────────
+  // Writer
+  // ─────────────────────────────────────────────────────────────────────────
+
+  private void drainLoop() {
+    while (true) {
+      if (!drainAll()) {
+        sleeping = true;
+        if (sequences.get((int) head & (CAPACITY - 1)) != head + 1) {
+          LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+        sleeping = false;
+      }
+    }
+  }
+
+  /**
+   * Writes every queued event, then flushes.
+   *
+   * @return {@code true} if anything was written
+   */
+  private synchronized boolean drainAll() {
+    boolean wrote = false;
+    Event event;
+    while ((event = poll()) != null) {
+      write(event);
+      wrote = true;
+    }
+    long drops = dropped.sum();
+    if (drops != droppedReported) {
+      stderr.println(format(System.currentTimeMillis(), Level.WARN, "log-writer",
+          (drops - droppedReported) + " log events dropped (ring buffer full)"));
+      droppedReported = drops;
+      wrote = true;
+    }
+    if (wrote) {
+      stdout.flush();
+      stderr.flush();
+    }
+    return wrote;
+  }
+
+  private void write(Event event) {
+    String message;
+    try {
+      message = event.args().length == 0
+          ? event.template()
+          : String.format(event.template(), event.args());
+    } catch (RuntimeException e) {
+      message = event.template() + " (bad log format: " + e + ")";
+    }
+    PrintStream stream = event.level().compareTo(Level.WARN) <= 0 ? stderr : stdout;
+    stream.println(format(event.millis(), event.level(), event.thread(), message));
+  }
+
+  private static String format(long millis, Level level, String thread, String message) {
+    LocalTime time = LocalTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    return TIME.format(time) + ' ' + String.format("%-5s", level) + " [" + thread + "] "
+        + message;
+  }
+
+}
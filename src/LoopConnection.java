@@ -0,0 +1,71 @@
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * LoopConnection - A connection owned by an {@link EventLoop}.
+ *
+ * <p>The loop only knows this contract: it reports readiness, then flushes at the end of
+ * the batch every connection that queued output. What the bytes mean is up to the
+ * implementation ({@link EchoConnection}, {@link BroadcastConnection}). Every method is
+ * called on the owning loop's thread.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+interface LoopConnection {
+
+  /**
+   * Creates the connection state for a channel a loop has just registered.
+   */
+  @FunctionalInterface
+  interface Factory {
+
+    /**
+     * @param loop    the owning loop
+     * @param channel the non-blocking client channel
+     * @param key     its registration with the loop's selector
+     * @param onClose run exactly once when the connection closes (loop bookkeeping)
+     * @return the new connection
+     */
+    LoopConnection create(EventLoop loop, SocketChannel channel, SelectionKey key,
+        Runnable onClose);
+  }
+
+  /**
+   * The channel is readable.
+   *
+   * @return {@code true} if output was queued and the connection must be added to the
+   *         loop's flush list
+   * @throws IOException if the channel fails; the loop closes the connection
+   */
+  boolean onReadable() throws IOException;
+
+  /**
+   * The channel can accept more output.
+   *
+   * @throws IOException if the channel fails; the loop closes the connection
+   */
+  void onWritable() throws IOException;
+
+  /**
+   * Flushes queued output if its size or latency bound says so.
+   *
+   * @param now current {@link System#nanoTime()}
+   * @return {@code true} if the connection can leave the flush list
+   * @throws IOException if the channel fails; the loop closes the connection
+   */
+  boolean flushIfDue(long now) throws IOException;
+
+  /**
+   * Nanoseconds until queued output must be flushed; {@code Long.MAX_VALUE} when empty.
+   */
+  long nanosUntilFlush(long now);
+
+  /**
+   * Closes the channel and returns borrowed buffers. Safe to call more than once.
+   */
+  void close();
+
+}
@@ -1,7 +1,4 @@
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.net.ServerSocket;
 import java.net.Socket;
 
@@ -18,8 +15,9 @@ import java.net.Socket;
  * <p><b>Yeni Kavramlar:</b>
  * <ul>
  *   <li>while loop: Sürekli mesaj okuma</li>
- *   <li>null check: Client disconnect kontrolü</li>
- *   <li>equalsIgnoreCase: Case-insensitive karşılaştırma</li>
+ *   <li>EOF kontrolü: Client disconnect</li>
+ *   <li>"quit" kontrolü: Case-insensitive karşılaştırma (byte üzerinde)</li>
+ *   <li>Pipelining: buffer'daki bütün satırların cevapları tek write ile</li>
  *   <li>Graceful shutdown: "quit" komutu ile temiz kapanış</li>
  * </ul>
  *
@@ -43,6 +41,10 @@ import java.net.Socket;
  *   <li>Paralel işlem yok</li>
  * </ul>
  *
+ * <p><b>Virtual Thread Modu:</b> {@code java -Dvirtual.threads=true LoopingEchoServer}
+ * ile yukarıdaki limitasyonlar kalkar: her client kendi virtual thread'inde,
+ * aynı blocking kodla servis edilir (Java 21+).
+ *
  * @author Gokhan D.
  * @version 1.0
  * @since 2026-02-05
@@ -61,6 +63,20 @@ public class LoopingEchoServer {
    */
   private static final int PORT = 8002;
 
+  /**
+   * Giriş/çıkış buffer boyutu (uzun satırlarda {@link LineCodec} büyütür).
+   */
+  private static final int BUFFER_SIZE = 8192;
+
+  /**
+   * Virtual thread modu: {@code -Dvirtual.threads=true}.
+   *
+   * <p>Açıkken server tek client'ta durmaz; her bağlantı kendi virtual thread'inde
+   * {@link EchoHandler} ile (aynı blocking readLine döngüsü) servis edilir.
+   * Bkz. {@link VirtualThreadAcceptor}.
+   */
+  private static final boolean VIRTUAL_THREADS = Boolean.getBoolean("virtual.threads");
+
   /**
    * Server'ın ana giriş noktası.
    *
@@ -68,7 +84,7 @@ public class LoopingEchoServer {
    * <ol>
    *   <li>ServerSocket oluştur (port 8002)</li>
    *   <li>Client bağlantısını bekle</li>
-   *   <li>LOOP: Mesaj oku → Echo gönder</li>
+   *   <li>LOOP: Satır oku → Echo ekle → buffer'da satır kalmadıysa gönder</li>
    *   <li>"quit" gelirse loop'tan çık</li>
    *   <li>Bağlantıyı kapat</li>
    * </ol>
@@ -77,6 +93,24 @@ public class LoopingEchoServer {
    */
   public static void main(String[] args) {  // ✅ public ekledik
 
+    /*
+     * SIGTERM / Ctrl+C: önce yeni bağlantıları durdur, açık bağlantıların elindeki
+     * mesajları bitirmesini bekle, sonra kapan (bkz. ServerLifecycle).
+     */
+    ServerLifecycle.DEFAULT.installShutdownHook();
+
+    if (VIRTUAL_THREADS) {
+      try {
+        Metrics.startEndpoint();
+        VirtualThreadAcceptor.serve("LoopingEchoServer", PORT,
+            clientSocket -> new EchoHandler(clientSocket).run());
+      } catch (IOException ex) {
+        System.err.println("I/O Error: " + ex.getMessage());
+        ex.printStackTrace();
+      }
+      return;
+    }
+
     System.out.println("Single Client, Multiple Messages");
     System.out.println("Starting TCP Server on port: " + PORT + "...\n");
 
@@ -88,122 +122,153 @@ public class LoopingEchoServer {
       /*
        * Client Bağlantısını Kabul Etme
        * -------------------------------
-       * BasicEchoServer ile aynı (değişiklik yok)
+       * BasicEchoServer ile aynı; tek fark: shutdown sırasında listener kapatılırsa
+       * accept() exception fırlatır, bu bir hata değil normal kapanıştır.
        */
-      Socket clientSocket = serverSocket.accept();
-      System.out.println("Client Connected: " + clientSocket.getInetAddress());
+      ServerLifecycle.DEFAULT.start(serverSocket);
+      Socket clientSocket;
+      try {
+        clientSocket = serverSocket.accept();
+      } catch (IOException ex) {
+        if (!ServerLifecycle.DEFAULT.isRunning()) {
+          Log.info("Server stopped before a client connected.");
+          return;
+        }
+        throw ex;
+      }
+      ServerLifecycle.Connection tracked = ServerLifecycle.DEFAULT.register(clientSocket);
+      ConnectionRegistry.Entry session = ConnectionRegistry.DEFAULT.register("echo",
+          clientSocket.getInetAddress(), clientSocket.getPort(), clientSocket);
+      Log.info("Client Connected: %s", clientSocket.getInetAddress());
 
       /*
-       * Input/Output Stream'leri Açma
-       * ------------------------------
-       * BasicEchoServer ile aynı (değişiklik yok)
+       * Timeout'lar
+       * -----------
+       * Blocking read ve write varsayılan olarak sonsuza kadar bekler: idle ya da
+       * cevabını hiç okumayan bir client server'ı kilitler. ConnectionDeadlines
+       * hangi aşamada beklediğimizi takip eder, süre dolunca socket'i kapatır
+       * (bloklanan çağrı exception fırlatır). LineCodec her okuma ve yazmadan önce
+       * aşamayı bildirir: boşta bekleme, yarım satır, yazılamayan cevap.
        */
-      BufferedReader in = new BufferedReader(
-          new InputStreamReader(clientSocket.getInputStream()));
-      PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true);
+      ConnectionDeadlines deadlines =
+          ConnectionDeadlines.watch(clientSocket, "client " + clientSocket.getInetAddress());
 
       /*
-       * ═══════════════════════════════════════════════════════════════════════
-       * YENİ KAVRAM: Message Loop (Mesaj Döngüsü)
-       * ═══════════════════════════════════════════════════════════════════════
-       *
-       * BasicEchoServer'da:
-       * -------------------
-       * String message = in.readLine();  // Tek mesaj
-       * out.println("Echo: " + message);
-       *
-       * LoopingEchoServer'da:
-       * ---------------------
-       * while (koşul) {
-       *     String message = in.readLine();  // Çoklu mesaj
-       *     out.println("Echo: " + message);
-       * }
-       *
-       * Loop Koşulu:
-       * ------------
-       * 1. message != null
-       *    - readLine() null dönerse client bağlantıyı kapattı
-       *    - EOF (End of File) durumu
-       *    - Örnek: Client Ctrl+C ile kapandı
-       *
-       * 2. !message.equalsIgnoreCase("quit")
-       *    - "quit" mesajı gelirse loop'tan çık
-       *    - equalsIgnoreCase: "quit", "QUIT", "Quit" hepsi çalışır
-       *    - Graceful shutdown (temiz kapanış)
-       *
-       * Neden && (AND) operatörü?
-       * -------------------------
-       * - İki koşul da true olmalı (devam etmek için)
-       * - message null ise equalsIgnoreCase çağrılmaz (NullPointerException önleme)
-       * - Short-circuit evaluation: İlk false görünce durur
-       *
-       * Örnek Senaryolar:
-       * -----------------
-       * 1. Normal mesaj:
-       *    message = "Hello"
-       *    message != null → true
-       *    !message.equalsIgnoreCase("quit") → true
-       *    → Loop devam eder
-       *
-       * 2. Quit komutu:
-       *    message = "quit"
-       *    message != null → true
-       *    !message.equalsIgnoreCase("quit") → false
-       *    → Loop durur
-       *
-       * 3. Client disconnect:
-       *    message = null
-       *    message != null → false
-       *    → Loop durur (equalsIgnoreCase çağrılmaz)
+       * Bağlantıyı Kapatma
+       * ------------------
+       * try/finally: döngü exception ile (timeout, client reset, admin kill) çıksa da
+       * socket kapanır, deadline izlemesi durur, bağlantı drain ve admin listesinden
+       * düşer (EchoHandler.run ile aynı).
        */
-      String message;
-      while ((message = in.readLine()) != null && !message.equalsIgnoreCase("quit")) {
+      try (clientSocket) {
 
-        System.out.println("Received: " + message);
+        /*
+         * Input/Output: LineCodec
+         * -----------------------
+         * BasicEchoServer'daki BufferedReader + PrintWriter yerine ham stream'ler.
+         * Echo karakterlere hiç bakmaz: LineCodec '\n' byte'ını arar ve
+         * "Echo: " + satır byte'larını doğrudan çıkış buffer'ına kopyalar
+         * (String, decode/encode yok; bkz. LineCodec, ByteVsChar).
+         */
+        LineCodec codec = new LineCodec(clientSocket.getInputStream(),
+            clientSocket.getOutputStream(), BUFFER_SIZE, deadlines, session);
 
         /*
-         * Echo Response Gönderme
-         * ----------------------
-         * BasicEchoServer ile aynı
-         * Her mesaj için "Echo: " prefix ekle ve gönder
+         * ═══════════════════════════════════════════════════════════════════════
+         * YENİ KAVRAM: Message Loop (Mesaj Döngüsü)
+         * ═══════════════════════════════════════════════════════════════════════
+         *
+         * BasicEchoServer'da:
+         * -------------------
+         * codec.readLine();  // Tek mesaj
+         * codec.writeEcho();
+         *
+         * LoopingEchoServer'da:
+         * ---------------------
+         * while (koşul) {
+         *     codec.writeEcho();  // Çoklu mesaj
+         * }
+         *
+         * Loop Koşulu:
+         * ------------
+         * 1. open = codec.readLine()
+         *    - false dönerse client bağlantıyı kapattı
+         *    - EOF (End of File) durumu
+         *    - Örnek: Client Ctrl+C ile kapandı
+         *
+         * 2. !codec.lineIsQuit()
+         *    - "quit" mesajı gelirse loop'tan çık
+         *    - Büyük/küçük harf fark etmez: "quit", "QUIT", "Quit" hepsi çalışır
+         *    - Graceful shutdown (temiz kapanış)
+         *
+         * Neden && (AND) operatörü?
+         * -------------------------
+         * - İki koşul da true olmalı (devam etmek için)
+         * - Satır yoksa lineIsQuit çağrılmaz (bakılacak satır yok)
+         * - Short-circuit evaluation: İlk false görünce durur
+         *
+         * Pipelining:
+         * -----------
+         * Client tek segment içinde yüzlerce satır gönderebilir. Her cevabı ayrı ayrı
+         * göndermek satır başına bir write syscall'ı demek. Bunun yerine buffer'da tam
+         * satır kaldığı sürece cevaplar biriktirilir (sırası korunur) ve bloklayabilecek
+         * bir sonraki read'den hemen önce tek write ile gönderilir. Yarım kalan son satır
+         * bir sonraki okumayı bekler. Kapatmak için: -Decho.pipelining=false
          */
-        String response = "Echo: " + message;
-        out.println(response);
-        System.out.println("Sent: " + response);
-      }
+        boolean open;
+        int batch = 0;
+        while ((open = codec.readLine()) && !codec.lineIsQuit()) {
+          codec.writeEcho();
+          batch++;
+          if (!EchoHandler.PIPELINING || !codec.hasBufferedLine()) {
+            codec.flush();
 
-      /*
-       * ═══════════════════════════════════════════════════════════════════════
-       * YENİ KAVRAM: Graceful Shutdown (Temiz Kapanış)
-       * ═══════════════════════════════════════════════════════════════════════
-       *
-       * Loop'tan çıkış sebepleri:
-       * -------------------------
-       * 1. Client "quit" gönderdi
-       *    - message = "quit"
-       *    - Kontrollü kapanış
-       *
-       * 2. Client bağlantıyı kapattı
-       *    - message = null
-       *    - Beklenmedik kapanış (Ctrl+C, network hatası vs)
-       *
-       * Hangi sebeple çıktığını kontrol edelim:
-       * ----------------------------------------
-       */
-      if (message == null) {
-        System.out.println("\nClient disconnected unexpectedly.");
-      } else {
-        System.out.println("\nClient sent 'quit' command.");
-      }
+            /*
+             * Log DEBUG seviyesinde ve asenkron (bkz. Log): System.out.println her
+             * mesajda konsolu bekler ve throughput'u düşürür.
+             * Görmek için: java -Dlog.level=debug LoopingEchoServer
+             */
+            Log.debug("Echoed %d line(s) in one write", batch);
+            batch = 0;
+          }
+        }
+        codec.flush();  // "quit" / EOF öncesi pipeline edilmiş satırların cevapları
 
-      /*
-       * Bağlantıyı Kapatma
-       * ------------------
-       * BasicEchoServer ile aynı
-       * Socket'i kapat, kaynakları temizle
-       */
-      clientSocket.close();
-      System.out.println("Server shutting down.");
+        /*
+         * ═══════════════════════════════════════════════════════════════════════
+         * YENİ KAVRAM: Graceful Shutdown (Temiz Kapanış)
+         * ═══════════════════════════════════════════════════════════════════════
+         *
+         * Loop'tan çıkış sebepleri:
+         * -------------------------
+         * 1. Client "quit" gönderdi
+         *    - open = true, satır "quit"
+         *    - Kontrollü kapanış
+         *
+         * 2. Client bağlantıyı kapattı
+         *    - open = false
+         *    - Beklenmedik kapanış (Ctrl+C, network hatası vs)
+         *
+         * 3. Server kapanıyor (drain)
+         *    - ServerLifecycle okuma yönünü kapattı → readLine() false döner
+         *    - Cevaplar zaten gönderildi, bağlantı temiz kapanır
+         *
+         * Hangi sebeple çıktığını kontrol edelim:
+         * ----------------------------------------
+         */
+        if (!open && !ServerLifecycle.DEFAULT.isRunning()) {
+          Log.info("Server shutting down; connection drained.");
+        } else if (!open) {
+          Log.info("Client disconnected unexpectedly.");
+        } else {
+          Log.info("Client sent 'quit' command.");
+        }
+      } finally {
+        deadlines.stop();
+        tracked.close();  // socket kapandıktan sonra: drain bu bağlantıyı bitmiş sayar
+        ConnectionRegistry.DEFAULT.unregister(session);
+      }
+      Log.info("Server shutting down.");
 
     } catch (IOException ex) {
       /*
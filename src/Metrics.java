@@ -0,0 +1,299 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Metrics - Process-wide server counters and latency histograms, served in the
+ * Prometheus text format on an admin port.
+ *
+ * <p>Printing every message is both slow ({@code System.out} is synchronized and blocks
+ * on the terminal) and useless for capacity planning. Instead the servers bump counters
+ * on their hot paths and a scraper reads them over HTTP:</p>
+ * <pre>
+ * echo / terminal threads                          admin port (-Dmetrics.port,
+ *                                                    loopback unless -Dmetrics.host)
+ *   connectionOpened()  ─→ LongAdder ┐
+ *   bytesIn(n)          ─→ LongAdder ├─ scrape ─→  GET /metrics
+ *   echoed(n, start)    ─→ LongAdder │             tcpserver_connections_active 12
+ *                       ─→ ConcurrentHistogram ┘   tcpserver_messages_total 48213
+ *                                                   ...
+ * </pre>
+ *
+ * <h3>Cost on the hot path:</h3>
+ * <ul>
+ *   <li>Recording is off unless {@code -Dmetrics.port} is set. {@link #ENABLED} is a
+ *       {@code static final}, so the JIT removes the disabled calls entirely.</li>
+ *   <li>Counters are {@link LongAdder}s: threads add to their own cell, no CAS loop on a
+ *       shared word. Only the scraper sums the cells.</li>
+ *   <li>Latency is recorded once per <em>flushed batch</em> (all pipelined lines answered
+ *       by one write), not per line, so one pair of {@code nanoTime()} calls is shared by
+ *       the whole batch.</li>
+ * </ul>
+ *
+ * <h3>Exported series:</h3>
+ * <pre>
+ * tcpserver_connections_accepted_total   counter     rate() = accepts per second
+ * tcpserver_connections_active           gauge
+ * tcpserver_bytes_received_total         counter
+ * tcpserver_bytes_sent_total             counter
+ * tcpserver_messages_total               counter     rate() = messages per second
+ * tcpserver_service_seconds{stage=...}   histogram   stage = echo | command
+ * </pre>
+ * <p>Servers can add their own gauges with {@link #gauge} (e.g. the terminal's process
+ * supervisor).</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class Metrics {
+
+  /**
+   * Admin port for {@code GET /metrics}; 0 (default) disables recording and the endpoint.
+   */
+  static final int PORT = Integer.getInteger("metrics.port", 0);
+
+  static final boolean ENABLED = PORT > 0;
+
+  /**
+   * Interface the admin endpoint binds to ({@code -Dmetrics.host}); loopback by default.
+   *
+   * <p>The endpoint has no authentication and {@code POST /connections/kill} closes client
+   * connections, while {@code GET /connections} lists client addresses. Only set this to
+   * a reachable address on a network you trust (e.g. {@code 0.0.0.0} behind a firewall
+   * that admits the scraper only).</p>
+   */
+  static final String HOST = System.getProperty("metrics.host");
+
+  static final Metrics DEFAULT = new Metrics();
+
+  /**
+   * Upper bounds of the exported histogram buckets, in nanoseconds (10 µs … 10 s).
+   * The fine log-linear buckets underneath are folded into these at scrape time.
+   */
+  private static final long[] BUCKET_BOUNDS = {
+      10_000L, 25_000L, 50_000L, 100_000L, 250_000L, 500_000L,
+      1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L,
+      100_000_000L, 250_000_000L, 500_000_000L,
+      1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L};
+
+  private final LongAdder accepted = new LongAdder();
+  private final LongAdder closed = new LongAdder();
+  private final LongAdder bytesIn = new LongAdder();
+  private final LongAdder bytesOut = new LongAdder();
+  private final LongAdder messages = new LongAdder();
+  private final ConcurrentHistogram echoLatency = new ConcurrentHistogram();
+  private final ConcurrentHistogram commandLatency = new ConcurrentHistogram();
+  private final List<Gauge> gauges = new CopyOnWriteArrayList<>();
+
+  private record Gauge(String name, String help, LongSupplier value) {
+  }
+
+  private Metrics() {
+  }
+
+  /**
+   * Starts the admin HTTP endpoint if {@code -Dmetrics.port} is set; otherwise does
+   * nothing. Call once from {@code main}. Besides {@code /metrics} it serves the
+   * {@link ConnectionRegistry} admin pages under {@code /connections}. Binds to
+   * {@link #HOST}, loopback unless told otherwise.
+   *
+   * @throws IOException if the admin port cannot be bound or the host not resolved
+   */
+  static void startEndpoint() throws IOException {
+    if (!ENABLED) {
+      return;
+    }
+    InetAddress address = HOST == null
+        ? InetAddress.getLoopbackAddress()
+        : InetAddress.getByName(HOST);
+    if (!address.isLoopbackAddress()) {
+      Log.warn("[metrics] admin endpoint on %s is reachable from the network and has no"
+          + " authentication (includes /connections/kill)", address.getHostAddress());
+    }
+    HttpServer server = HttpServer.create(new InetSocketAddress(address, PORT), 0);
+    server.createContext("/metrics", DEFAULT::serve);
+    server.createContext("/connections", ConnectionRegistry.DEFAULT::serve);
+    server.setExecutor(null);  // the single dispatcher thread; scrapes are rare
+    server.start();
+    System.out.println("[metrics] serving http://" + address.getHostAddress() + ":" + PORT
+        + "/metrics"
+        + " and /connections");
+  }
+
+  // ─────────────────────────────────────────────────────────────────────────
+  // Recording (hot path)
+  // ─────────────────────────────────────────────────────────────────────────
+
+  void connectionOpened() {
+    if (ENABLED) {
+      accepted.increment();
+    }
+  }
+
+  void connectionClosed() {
+    if (ENABLED) {
+      closed.increment();
+    }
+  }
+
+  void bytesIn(long n) {
+    if (ENABLED) {
+      bytesIn.add(n);
+    }
+  }
+
+  void bytesOut(long n) {
+    if (ENABLED) {
+      bytesOut.add(n);
+    }
+  }
+
+  void messages(long n) {
+    if (ENABLED) {
+      messages.add(n);
+    }
+  }
+
+  /**
+   * Records a flushed batch of echo responses.
+   *
+   * @param count      messages answered by the batch; 0 if the caller already counted
+   *                   them with {@link #messages(long)}
+   * @param startNanos {@link #now()} when the first message of the batch was read
+   */
+  void echoed(int count, long startNanos) {
+    if (ENABLED) {
+      messages.add(count);
+      echoLatency.record(System.nanoTime() - startNanos);
+    }
+  }
+
+  /**
+   * Records one completed terminal command.
+   *
+   * @param startNanos {@link #now()} when the command was taken from the queue
+   */
+  void commandServed(long startNanos) {
+    if (ENABLED) {
+      messages.increment();
+      commandLatency.record(System.nanoTime() - startNanos);
+    }
+  }
+
+  /**
+   * {@link System#nanoTime()} when recording is on, 0 otherwise; lets callers skip the
+   * clock read when metrics are disabled.
+   */
+  static long now() {
+    return ENABLED ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Exports {@code value} as gauge {@code tcpserver_<name>} on every scrape.
+   *
+   * @param name  metric name without the {@code tcpserver_} prefix
+   * @param help  one-line description
+   * @param value read on the dispatcher thread at scrape time; must be thread-safe
+   */
+  void gauge(String name, String help, LongSupplier value) {
+    gauges.add(new Gauge("tcpserver_" + name, help, value));
+  }
+
+  // ─────────────────────────────────────────────────────────────────────────
+  // Exposition
+  // ─────────────────────────────────────────────────────────────────────────
+
+  private void serve(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      byte[] body = render().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    }
+  }
+
+  /**
+   * Current values in the Prometheus text exposition format.
+   *
+   * @return the scrape body
+   */
+  String render() {
+    StringBuilder sb = new StringBuilder(2048);
+    long gone = closed.sum();  // before accepted, so active never reads negative
+    long opened = accepted.sum();
+    counter(sb, "tcpserver_connections_accepted_total", "Accepted client connections.", opened);
+    gauge(sb, "tcpserver_connections_active", "Open client connections.", opened - gone);
+    counter(sb, "tcpserver_bytes_received_total", "Bytes read from clients.", bytesIn.sum());
+    counter(sb, "tcpserver_bytes_sent_total", "Bytes written to clients.", bytesOut.sum());
+    counter(sb, "tcpserver_messages_total", "Echoed lines/frames and executed commands.",
+        messages.sum());
+
+    String name = "tcpserver_service_seconds";
+    sb.append("# HELP ").append(name)
+        .append(" Time from reading a request to handing its response to the kernel.\n");
+    sb.append("# TYPE ").append(name).append(" histogram\n");
+    histogram(sb, name, "echo", echoLatency);
+    histogram(sb, name, "command", commandLatency);
+
+    for (Gauge g : gauges) {
+      gauge(sb, g.name(), g.help(), g.value().getAsLong());
+    }
+    return sb.toString();
+  }
+
+  private static void counter(StringBuilder sb, String name, String help, long value) {
+    sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    sb.append("# TYPE ").append(name).append(" counter\n");
+    sb.append(name).append(' ').append(value).append('\n');
+  }
+
+  private static void gauge(StringBuilder sb, String name, String help, long value) {
+    sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    sb.append("# TYPE ").append(name).append(" gauge\n");
+    sb.append(name).append(' ').append(value).append('\n');
+  }
+
+  /**
+   * Folds the fine buckets into cumulative {@code le} buckets. A fine bucket counts
+   * toward a bound only if its highest value fits under it, so samples within 1% of a
+   * bound may land one bucket higher: the export errs on the slow side.
+   */
+  private static void histogram(StringBuilder sb, String name, String stage,
+                                ConcurrentHistogram histogram) {
+    long[] counts = histogram.counts();
+    long cumulative = 0;
+    int i = 0;
+    for (long bound : BUCKET_BOUNDS) {
+      while (i < counts.length && LatencyHistogram.highestValueAt(i) <= bound) {
+        cumulative += counts[i++];
+      }
+      sb.append(name).append("_bucket{stage=\"").append(stage).append("\",le=\"")
+          .append(seconds(bound)).append("\"} ").append(cumulative).append('\n');
+    }
+    while (i < counts.length) {
+      cumulative += counts[i++];
+    }
+    sb.append(name).append("_bucket{stage=\"").append(stage).append("\",le=\"+Inf\"} ")
+        .append(cumulative).append('\n');
+    sb.append(name).append("_sum{stage=\"").append(stage).append("\"} ")
+        .append(seconds(histogram.sum())).append('\n');
+    sb.append(name).append("_count{stage=\"").append(stage).append("\"} ")
+        .append(cumulative).append('\n');
+  }
+
+  private static String seconds(long nanos) {
+    return Double.toString(nanos / 1e9);
+  }
+
+}
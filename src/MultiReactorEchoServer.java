@@ -0,0 +1,161 @@
+import java.io.IOException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * MultiReactorEchoServer - Boss/Worker Reactor (N event loop)
+ *
+ * <p><b>NioEchoServer'dan Farkı:</b>
+ * <ul>
+ *   <li>Tek selector thread tek çekirdeği doyurur; burada N tane worker selector var</li>
+ *   <li>Boss (acceptor) thread sadece accept() yapar</li>
+ *   <li>Kabul edilen her {@code SocketChannel} bir worker {@link EventLoop}'a devredilir</li>
+ *   <li>Bir bağlantı ömür boyu aynı loop'ta kalır: connection state'i için kilit gerekmez</li>
+ * </ul>
+ *
+ * <p><b>Mimari:</b>
+ * <pre>
+ *                         ┌─→ reactor-worker-1 (Selector) ─→ EchoConnection'lar
+ *   Client'lar ─→ boss ───┼─→ reactor-worker-2 (Selector) ─→ EchoConnection'lar
+ *                (accept) └─→ reactor-worker-N (Selector) ─→ EchoConnection'lar
+ * </pre>
+ *
+ * <p><b>Dağıtım (balance) stratejisi:</b>
+ * <ul>
+ *   <li><b>round-robin</b>: Sırayla 1, 2, ..., N, 1, ... (varsayılan, O(1))</li>
+ *   <li><b>least-loaded</b>: En az bağlantısı olan loop (uzun ömürlü, dengesiz
+ *       bağlantılarda daha adil)</li>
+ * </ul>
+ *
+ * <p><b>Ayarlar (system property):</b>
+ * <pre>
+ *   -Dreactor.workers=8                         worker loop sayısı (varsayılan: CPU sayısı)
+ *   -Dreactor.balance=round-robin|least-loaded  dağıtım stratejisi
+ *   -Dbacklog=1024                              kernel accept backlog
+ *   -Dframed.port=8017 -Dframed.format=int32    ek binary (length-prefixed) listener
+ * </pre>
+ *
+ * <p><b>Core pinning:</b> Java'da thread'i çekirdeğe sabitleyen bir API yok. Worker
+ * thread'leri {@code reactor-worker-N} olarak isimlendirilir; pinning gerekiyorsa JVM
+ * bütün olarak {@code taskset -c 0-7 java ...} / {@code numactl} ile sınırlandırılır ve
+ * {@code reactor.workers} çekirdek sayısına eşitlenir.
+ *
+ * <p><b>Test Senaryosu:</b>
+ * <pre>
+ *   java -Dreactor.workers=4 MultiReactorEchoServer
+ *   nc localhost 8007
+ * </pre>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class MultiReactorEchoServer {
+
+  private static final int PORT = 8007;
+
+  private static final int WORKERS =
+      Integer.getInteger("reactor.workers", Runtime.getRuntime().availableProcessors());
+
+  private static final String BALANCE = System.getProperty("reactor.balance", "round-robin");
+
+  /**
+   * Server'ın ana giriş noktası. Main thread boss (acceptor) olarak çalışır.
+   *
+   * @param args Komut satırı argümanları (kullanılmıyor)
+   */
+  public static void main(String[] args) {
+
+    System.out.println("Multi Reactor, Multiple Clients (boss + " + WORKERS + " workers)");
+    System.out.println("Starting TCP Server on port: " + PORT + "...\n");
+
+    if (!BALANCE.equals("round-robin") && !BALANCE.equals("least-loaded")) {
+      throw new IllegalArgumentException(
+          "Unknown balance strategy: " + BALANCE + " (expected round-robin|least-loaded)");
+    }
+
+    EventLoop[] workers = new EventLoop[WORKERS];
+
+    try (ServerSocketChannel serverChannel = NioEchoServer.bind(PORT)) {
+
+      Metrics.startEndpoint();
+      if (TlsContext.ENABLED) {
+        System.out.println("TLS enabled: " + TlsContext.KEYSTORE);  // bkz. NioEchoServer
+      }
+      for (int i = 0; i < WORKERS; i++) {
+        workers[i] = new EventLoop("reactor-worker-" + (i + 1));
+        workers[i].start();
+      }
+
+      System.out.println("Server Listening on port " + PORT + " (line, balance=" + BALANCE + ")");
+
+      /*
+       * Binary listener (-Dframed.port) kendi boss thread'inde accept eder,
+       * aynı worker loop'lara dağıtır.
+       */
+      if (NioEchoServer.FRAMED_PORT > 0) {
+        ServerSocketChannel framedChannel = NioEchoServer.bind(NioEchoServer.FRAMED_PORT);
+        Thread framedBoss = new Thread(
+            () -> acceptLoop(framedChannel, NioEchoServer.FRAMED_FORMAT, workers),
+            "reactor-boss-framed");
+        framedBoss.setDaemon(true);
+        framedBoss.start();
+        System.out.println("Server Listening on port " + NioEchoServer.FRAMED_PORT + " ("
+            + NioEchoServer.FRAMED_FORMAT.name().toLowerCase() + " length-prefixed)");
+      }
+      System.out.println();
+
+      acceptLoop(serverChannel, Framing.LINE, workers);
+
+    } catch (IOException ex) {
+      System.err.println("Server error: " + ex.getMessage());
+      ex.printStackTrace();
+    } finally {
+      for (EventLoop worker : workers) {
+        if (worker != null) {
+          worker.shutdown();
+        }
+      }
+    }
+  }
+
+  /**
+   * Boss loop: blocking accept yeterli. Boss'un tek işi accept etmek ve kanalı bir
+   * worker'a devretmek; I/O'ya hiç dokunmaz.
+   *
+   * @param serverChannel blocking modda, bind edilmiş listener
+   * @param framing       bu listener'dan gelen bağlantıların wire formatı
+   * @param workers       worker event loop'lar
+   */
+  private static void acceptLoop(ServerSocketChannel serverChannel, Framing framing,
+      EventLoop[] workers) {
+    int next = 0;
+    try {
+      while (true) {
+        SocketChannel channel = serverChannel.accept();
+
+        EventLoop target;
+        if (BALANCE.equals("least-loaded")) {
+          target = leastLoaded(workers);
+        } else {
+          target = workers[next];
+          next = (next + 1) % workers.length;
+        }
+        target.register(channel, framing);
+      }
+    } catch (IOException ex) {
+      System.err.println("Accept failed on " + framing + " listener: " + ex.getMessage());
+    }
+  }
+
+  private static EventLoop leastLoaded(EventLoop[] workers) {
+    EventLoop best = workers[0];
+    for (int i = 1; i < workers.length; i++) {
+      if (workers[i].connectionCount() < best.connectionCount()) {
+        best = workers[i];
+      }
+    }
+    return best;
+  }
+
+}
@@ -0,0 +1,117 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+
+/**
+ * NioEchoServer - Tek Thread, Çoklu Client (Java NIO / Selector pattern)
+ *
+ * <p><b>Thread tabanlı server'lardan farkı:</b>
+ * <ul>
+ *   <li>Thread başına socket yok: TEK event-loop thread binlerce client'a bakar</li>
+ *   <li>Hiçbir çağrı bloklamaz; {@code select()} sadece "hazır" socket'leri döner</li>
+ *   <li>Satır bölme (framing) doğrudan {@code ByteBuffer} üzerinde yapılır</li>
+ *   <li>Protokol LoopingEchoServer ile aynı: {@code "Echo: " + satır}, {@code quit}</li>
+ * </ul>
+ *
+ * <p><b>Event Loop ({@link EventLoop}):</b>
+ * <pre>
+ *   while (true) {
+ *     selector.select();                 // hazır olan kanalları bekle
+ *     for (key : selectedKeys) {
+ *       OP_ACCEPT → accept, non-blocking yap, OP_READ ile kaydet
+ *       OP_READ   → oku, tam satırları işle, cevapları kuyruğa koy
+ *       OP_WRITE  → yarım kalan cevabı yazmaya devam et
+ *     }
+ *     kuyruğu dolan bağlantıları tek gathering write ile flush et
+ *   }
+ * </pre>
+ *
+ * <p>Yarım okuma / yarım yazma durumları {@link EchoConnection} içinde ele alınır.
+ *
+ * <p><b>Test Senaryosu:</b>
+ * <pre>
+ *   java NioEchoServer
+ *   nc localhost 8006   (istediğin kadar terminal açabilirsin)
+ *
+ *   java -Dframed.port=8016 -Dframed.format=varint NioEchoServer
+ *   → 8006 satır protokolü, 8016 length-prefixed binary echo
+ *
+ *   java -Dtls.keystore=server.p12 NioEchoServer
+ *   openssl s_client -connect localhost:8006 -quiet   (TLS, bkz. TlsContext)
+ * </pre>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class NioEchoServer {
+
+  private static final int PORT = 8006;
+
+  private static final int BACKLOG = Integer.getInteger("backlog", 1024);
+
+  /**
+   * İkinci (binary) listener portu, {@code -Dframed.port=8016}. 0 = kapalı.
+   *
+   * <p>Bu porttaki bağlantılar satır yerine length-prefixed frame konuşur;
+   * format {@code -Dframed.format=int32|varint} ile seçilir (bkz. {@link Framing}).
+   */
+  static final int FRAMED_PORT = Integer.getInteger("framed.port", 0);
+
+  static final Framing FRAMED_FORMAT =
+      Framing.parse(System.getProperty("framed.format", "int32"));
+
+  /**
+   * Server'ın ana giriş noktası: selector'ı kurar ve event loop'u çalıştırır.
+   *
+   * @param args Komut satırı argümanları (kullanılmıyor)
+   */
+  public static void main(String[] args) {
+
+    System.out.println("Single Thread, Multiple Clients (NIO Selector)");
+    System.out.println("Starting TCP Server on port: " + PORT + "...\n");
+
+    try (ServerSocketChannel serverChannel = bind(PORT);
+         ServerSocketChannel framedChannel = FRAMED_PORT > 0 ? bind(FRAMED_PORT) : null) {
+
+      /*
+       * Tek EventLoop hem OP_ACCEPT'i hem de bütün client'ların OP_READ/OP_WRITE
+       * olaylarını işler. Event loop main thread'de çalışır.
+       * Her listener kendi framing'ini taşır: 8006 satır, FRAMED_PORT binary.
+       */
+      Metrics.startEndpoint();
+      // -Dtls.keystore verilmişse bütün listener'lar TLS konuşur (bkz. TlsContext);
+      // keystore hatası ilk bağlantıda değil burada ortaya çıksın
+      if (TlsContext.ENABLED) {
+        System.out.println("TLS enabled: " + TlsContext.KEYSTORE);
+      }
+      EventLoop loop = new EventLoop("nio-event-loop");
+      loop.listen(serverChannel, Framing.LINE);
+      System.out.println("Server Listening on port " + PORT + " (line)");
+
+      if (framedChannel != null) {
+        loop.listen(framedChannel, FRAMED_FORMAT);
+        System.out.println("Server Listening on port " + FRAMED_PORT + " ("
+            + FRAMED_FORMAT.name().toLowerCase() + " length-prefixed)");
+      }
+      System.out.println();
+      loop.run();
+
+    } catch (IOException ex) {
+      System.err.println("Server error: " + ex.getMessage());
+      ex.printStackTrace();
+    }
+  }
+
+  /**
+   * Port'a bağlı bir server channel açar (SO_REUSEADDR + backlog).
+   */
+  static ServerSocketChannel bind(int port) throws IOException {
+    ServerSocketChannel channel = ServerSocketChannel.open();
+    channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+    channel.bind(new InetSocketAddress(port), BACKLOG);
+    return channel;
+  }
+
+}
@@ -0,0 +1,250 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.Arrays;
+
+/**
+ * OutboundQueue - Per-connection queue of response buffers, flushed with gathering writes.
+ *
+ * <p>With {@code new PrintWriter(out, true)} every {@code println} is its own {@code write}
+ * syscall and often its own TCP segment. Here responses are only <em>queued</em> while a
+ * read batch is processed; the event loop then sends everything with a single
+ * {@link GatheringByteChannel#write(ByteBuffer[], int, int)} (writev) call.</p>
+ *
+ * <h3>When is the queue flushed?</h3>
+ * <ul>
+ *   <li>at the end of the event loop's read batch, once its max-latency bound has passed
+ *       (bound 0 = every batch)</li>
+ *   <li>immediately, once queued bytes reach the size threshold</li>
+ * </ul>
+ *
+ * <p>Buffers are written in order. A buffer that the socket only partly accepts stays at
+ * the head of the queue with its position advanced. Fully written buffers are returned to
+ * {@link BufferPool}, except views of a {@link SharedPayload}: the queue does not own
+ * those bytes and only drops its reference. Not thread-safe: owned by the connection's
+ * event loop.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class OutboundQueue {
+
+  /**
+   * Queued bytes that trigger a flush without waiting for the end of the batch.
+   */
+  static final int FLUSH_THRESHOLD = Integer.getInteger("flush.threshold.bytes", 64 * 1024);
+
+  /**
+   * How long queued output may wait for more responses to coalesce with. 0 flushes at the
+   * end of every read batch.
+   */
+  static final long MAX_LATENCY_NANOS = Long.getLong("flush.max.latency.us", 0) * 1_000L;
+
+  private static final BufferPool POOL = BufferPool.DEFAULT;
+
+  private static final int TAIL_SIZE = 4096;
+
+  private ByteBuffer[] buffers = new ByteBuffer[8];
+  private SharedPayload[] shared = new SharedPayload[8];  // owner of buffers[i], or null
+  private int head;
+  private int count;
+  private long queuedBytes;
+
+  /**
+   * Buffer currently being filled with responses ("fill" mode); staged into the queue
+   * when it runs out of room or at flush time.
+   */
+  private ByteBuffer tail;
+
+  /**
+   * {@link System#nanoTime()} when the oldest unsent byte was queued.
+   */
+  private long oldestQueuedAt;
+
+  /**
+   * Returns the tail buffer, in "fill" mode, with at least {@code needed} bytes of room.
+   * Callers {@code put} their response bytes into it directly.
+   *
+   * @param needed bytes the caller is about to write
+   * @return a pooled buffer owned by this queue
+   */
+  ByteBuffer writable(int needed) {
+    if (tail != null && tail.remaining() >= needed) {
+      return tail;
+    }
+    if (isEmpty()) {
+      oldestQueuedAt = System.nanoTime();
+    }
+    stageTail();
+    tail = POOL.acquire(Math.max(TAIL_SIZE, needed));
+    return tail;
+  }
+
+  private void stageTail() {
+    if (tail != null) {
+      ByteBuffer staged = tail;
+      tail = null;
+      staged.flip();
+      append(staged, null);
+    }
+  }
+
+  /**
+   * Appends a buffer in "drain" mode (flipped). The queue takes ownership and releases it
+   * to the pool once written.
+   *
+   * @param buffer bytes to send, from {@code position} to {@code limit}
+   */
+  void enqueue(ByteBuffer buffer) {
+    if (isEmpty()) {
+      oldestQueuedAt = System.nanoTime();
+    }
+    append(buffer, null);
+  }
+
+  /**
+   * Appends a view of a shared payload after everything queued so far. The queue holds
+   * one reference until the view is written or the queue is cleared.
+   *
+   * @param payload a sealed payload
+   */
+  void enqueue(SharedPayload payload) {
+    if (isEmpty()) {
+      oldestQueuedAt = System.nanoTime();
+    }
+    stageTail();  // responses already in the tail go first
+    append(payload.retain(), payload);
+  }
+
+  private void append(ByteBuffer buffer, SharedPayload owner) {
+    if (!buffer.hasRemaining()) {
+      release(buffer, owner);
+      return;
+    }
+    if (count == buffers.length) {
+      compactToFront();
+      buffers = Arrays.copyOf(buffers, buffers.length * 2);
+      shared = Arrays.copyOf(shared, shared.length * 2);
+    }
+    int index = (head + count) % buffers.length;
+    buffers[index] = buffer;
+    shared[index] = owner;
+    count++;
+    queuedBytes += buffer.remaining();
+  }
+
+  private static void release(ByteBuffer buffer, SharedPayload owner) {
+    if (owner != null) {
+      owner.release();
+    } else {
+      POOL.release(buffer);
+    }
+  }
+
+  boolean isEmpty() {
+    return count == 0 && (tail == null || tail.position() == 0);
+  }
+
+  /**
+   * Bytes waiting to be sent, including the tail buffer.
+   *
+   * @return unsent bytes
+   */
+  long queuedBytes() {
+    return queuedBytes + (tail == null ? 0 : tail.position());
+  }
+
+  /**
+   * Whether the queue should be flushed now under the size and latency bounds.
+   *
+   * @param now current {@link System#nanoTime()}
+   * @return {@code true} if a flush is due
+   */
+  boolean flushDue(long now) {
+    long queued = queuedBytes();
+    return queued >= FLUSH_THRESHOLD
+        || (queued > 0 && now - oldestQueuedAt >= MAX_LATENCY_NANOS);
+  }
+
+  /**
+   * Nanoseconds until the latency bound forces a flush; {@code Long.MAX_VALUE} when empty.
+   *
+   * @param now current {@link System#nanoTime()}
+   * @return time left before {@link #flushDue} becomes true
+   */
+  long nanosUntilDue(long now) {
+    if (isEmpty()) {
+      return Long.MAX_VALUE;
+    }
+    return Math.max(0, oldestQueuedAt + MAX_LATENCY_NANOS - now);
+  }
+
+  /**
+   * Writes as much as the channel accepts using gathering writes.
+   *
+   * @param channel a non-blocking socket channel
+   * @return {@code true} if the queue is now empty
+   * @throws IOException if the write fails
+   */
+  boolean flushTo(GatheringByteChannel channel) throws IOException {
+    stageTail();
+    while (count > 0) {
+      if (head + count > buffers.length) {
+        compactToFront();
+      }
+      long written = channel.write(buffers, head, count);
+      queuedBytes -= written;
+
+      while (count > 0 && !buffers[head].hasRemaining()) {
+        release(buffers[head], shared[head]);
+        buffers[head] = null;
+        shared[head] = null;
+        head = (head + 1) % buffers.length;
+        count--;
+      }
+      if (written == 0) {
+        break;  // socket send buffer is full; wait for OP_WRITE
+      }
+    }
+    if (count == 0) {
+      head = 0;
+    } else {
+      oldestQueuedAt = System.nanoTime();
+    }
+    return count == 0;
+  }
+
+  /**
+   * Gathering writes need a contiguous slice of the array; unwrap the ring first.
+   */
+  private void compactToFront() {
+    ByteBuffer[] ordered = new ByteBuffer[buffers.length];
+    SharedPayload[] owners = new SharedPayload[shared.length];
+    for (int i = 0; i < count; i++) {
+      ordered[i] = buffers[(head + i) % buffers.length];
+      owners[i] = shared[(head + i) % shared.length];
+    }
+    buffers = ordered;
+    shared = owners;
+    head = 0;
+  }
+
+  /**
+   * Releases every queued buffer without sending it (connection is closing).
+   */
+  void clear() {
+    POOL.release(tail);
+    tail = null;
+    for (int i = 0; i < count; i++) {
+      int index = (head + i) % buffers.length;
+      release(buffers[index], shared[index]);
+      buffers[index] = null;
+      shared[index] = null;
+    }
+    head = 0;
+    count = 0;
+    queuedBytes = 0;
+  }
+
+}
@@ -0,0 +1,234 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * PersistentShell - One long-lived {@code sh} per session, fed commands through its stdin.
+ *
+ * <p>Fork-per-command pays fork + exec of a fresh shell (several ms) for every command
+ * and forgets {@code cd} and {@code export} in between. A persistent shell pays that
+ * once per session; afterwards a command costs what the command itself costs, and shell
+ * state (directory, variables, functions) carries over like in a real terminal.</p>
+ *
+ * <h3>Framing commands on a stream:</h3>
+ * <p>The shell's stdout never closes between commands, so end of output cannot be EOF.
+ * Every command is followed by a marker that is unique to this shell:</p>
+ * <pre>
+ * stdin  →  command eval 'ls -la' &lt;/dev/null; printf '%s %d\n' __END_3f9c.. $?; printf '%s\n' __END_3f9c.. &gt;&amp;2
+ *
+ * stdout ←  total 12\n drwxr-xr-x ...\n __END_3f9c.. 0\n
+ *           └──────── relayed ────────┘ └─ end + exit code, not relayed ─┘
+ * stderr ←  __END_3f9c..\n                (end of this command's stderr)
+ * </pre>
+ * <ul>
+ *   <li>{@code eval} with single quotes turns syntax errors (an unmatched quote) into a
+ *       failed command instead of a shell waiting forever for more input. The
+ *       {@code command} prefix strips {@code eval}'s special-built-in status, so such an
+ *       error does not end a non-interactive shell either.</li>
+ *   <li>{@code </dev/null} keeps commands from reading the following markers as their
+ *       own input; fork mode closes stdin for the same reason.</li>
+ *   <li>The marker may appear mid-line when output does not end with {@code '\n'}, so it
+ *       is searched anywhere in the byte stream, also across chunk boundaries.</li>
+ * </ul>
+ *
+ * <p>If a command ends the shell ({@code exit 3}), output hits EOF before the marker;
+ * {@link #run} reports {@link #SHELL_EXITED} and the session starts a new shell for the
+ * next command.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class PersistentShell {
+
+  /**
+   * {@link #run} result when the shell itself ended during the command.
+   */
+  static final int SHELL_EXITED = Integer.MIN_VALUE;
+
+  private static final int CHUNK_SIZE = 8 * 1024;
+
+  private final Process process;
+  private final boolean mergedStderr;
+  private final OutputStream stdin;
+  private final InputStream stdout;
+  private final InputStream stderr;
+  private final byte[] marker;
+  private final String markerText;
+
+  /**
+   * Wraps a started {@code sh} process.
+   *
+   * @param process      the shell, started without {@code -c}
+   * @param mergedStderr whether the shell was started with {@code redirectErrorStream(true)}
+   */
+  PersistentShell(Process process, boolean mergedStderr) {
+    this.process = process;
+    this.mergedStderr = mergedStderr;
+    this.stdin = process.getOutputStream();
+    this.stdout = new BufferedInputStream(process.getInputStream(), CHUNK_SIZE);
+    this.stderr = new BufferedInputStream(process.getErrorStream(), CHUNK_SIZE);
+    this.markerText = "__END_" + Long.toHexString(ThreadLocalRandom.current().nextLong())
+        + Long.toHexString(ThreadLocalRandom.current().nextLong()) + "__";
+    this.marker = markerText.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * The shell process.
+   */
+  Process process() {
+    return process;
+  }
+
+  /**
+   * Whether the shell can take another command.
+   */
+  boolean isAlive() {
+    return process.isAlive();
+  }
+
+  /**
+   * Runs {@code command} in the shell and streams its output to {@code out}.
+   *
+   * @param command the command line, exactly as the client typed it
+   * @param out     the session output
+   * @return the command's exit code, or {@link #SHELL_EXITED}
+   * @throws IOException          if the shell or the client fails
+   * @throws InterruptedException if interrupted while waiting for the stderr pump
+   */
+  int run(String command, TerminalOutput out) throws IOException, InterruptedException {
+    StringBuilder line = new StringBuilder(command.length() + 2 * marker.length + 64)
+        .append("command eval ").append(quote(command)).append(" </dev/null; ")
+        .append("printf '%s %d\\n' ").append(markerText).append(" $?");
+    if (!mergedStderr) {
+      line.append("; printf '%s\\n' ").append(markerText).append(" >&2");
+    }
+    stdin.write(line.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+    stdin.flush();
+
+    Thread stderrPump = null;
+    IOException[] stderrFailure = new IOException[1];
+    if (!mergedStderr) {
+      stderrPump = Thread.ofVirtual().name("stderr-pump").start(() -> {
+        try {
+          relayUntilMarker(stderr, out);
+        } catch (IOException e) {
+          stderrFailure[0] = e;
+        }
+      });
+    }
+
+    int exitCode = relayUntilMarker(stdout, out);
+
+    if (stderrPump != null) {
+      stderrPump.join();
+      if (stderrFailure[0] != null) {
+        throw stderrFailure[0];
+      }
+    }
+    return exitCode;
+  }
+
+  /**
+   * Relays {@code in} to {@code out} up to the marker, holding back any tail that could
+   * be the start of a marker split across reads.
+   *
+   * @return the exit code written after the marker (0 if none), or {@link #SHELL_EXITED}
+   *         at EOF
+   */
+  private int relayUntilMarker(InputStream in, TerminalOutput out) throws IOException {
+    byte[] buf = new byte[CHUNK_SIZE];
+    int len = 0;
+    while (true) {
+      if (len == buf.length) {
+        byte[] bigger = new byte[buf.length * 2];
+        System.arraycopy(buf, 0, bigger, 0, len);
+        buf = bigger;
+      }
+      int n = in.read(buf, len, buf.length - len);
+      if (n == -1) {
+        out.write(buf, 0, len);
+        out.flush();
+        return SHELL_EXITED;
+      }
+      len += n;
+
+      int m = indexOf(buf, len, marker);
+      if (m >= 0) {
+        out.write(buf, 0, m);
+        int nl = LineCodec.indexOf(buf, m + marker.length, len, (byte) '\n');
+        if (nl >= 0) {
+          return parseExitCode(buf, m + marker.length, nl);
+        }
+        // Marker seen, rest of its line not yet: keep the marker at the front.
+        System.arraycopy(buf, m, buf, 0, len - m);
+        len -= m;
+        continue;
+      }
+
+      int keep = markerPrefixAtEnd(buf, len);
+      out.write(buf, 0, len - keep);
+      System.arraycopy(buf, len - keep, buf, 0, keep);
+      len = keep;
+      out.flushIfIdle(in);
+    }
+  }
+
+  private int indexOf(byte[] buf, int len, byte[] target) {
+    outer:
+    for (int i = 0; i <= len - target.length; i++) {
+      for (int j = 0; j < target.length; j++) {
+        if (buf[i + j] != target[j]) {
+          continue outer;
+        }
+      }
+      return i;
+    }
+    return -1;
+  }
+
+  /**
+   * Length of the longest suffix of {@code buf[0, len)} that is a proper prefix of the
+   * marker.
+   */
+  private int markerPrefixAtEnd(byte[] buf, int len) {
+    outer:
+    for (int k = Math.min(marker.length - 1, len); k > 0; k--) {
+      for (int j = 0; j < k; j++) {
+        if (buf[len - k + j] != marker[j]) {
+          continue outer;
+        }
+      }
+      return k;
+    }
+    return 0;
+  }
+
+  private static int parseExitCode(byte[] buf, int from, int to) {
+    int code = 0;
+    for (int i = from; i < to; i++) {
+      if (buf[i] >= '0' && buf[i] <= '9') {
+        code = code * 10 + (buf[i] - '0');
+      }
+    }
+    return code;
+  }
+
+  /**
+   * Single-quotes {@code s} for {@code sh}: {@code it's} → {@code 'it'\''s'}.
+   */
+  static String quote(String s) {
+    return "'" + s.replace("'", "'\\''") + "'";
+  }
+
+  /**
+   * Ends the shell and everything it started.
+   */
+  void close() {
+    ProcessSupervisor.killTree(process.toHandle());
+  }
+
+}
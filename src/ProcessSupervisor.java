@@ -0,0 +1,182 @@
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * ProcessSupervisor - Caps, tracks and kills the child processes of all terminal sessions.
+ *
+ * <p>With many concurrent sessions, nothing stops a few users from forking hundreds of
+ * commands at once. The supervisor holds one permit per allowed live process:</p>
+ * <pre>
+ * session ─→ start(pb) ─→ permit free?  ──yes──→ pb.start() ──→ live set
+ *                            │                                    │
+ *                            no: wait in FIFO queue               onExit (reaped)
+ *                            (fair semaphore)                     └─→ release permit
+ * </pre>
+ *
+ * <p>Waiting is interruptible, so a session whose client disconnects while its command
+ * is still queued simply gives up its place.</p>
+ *
+ * <h3>Killing trees:</h3>
+ * <p>{@code Process.destroy()} only signals the direct child. For {@code sh -c "a | b"}
+ * that is the shell, and {@code a} and {@code b} are reparented to init and keep
+ * running. {@link #killTree(ProcessHandle)} snapshots
+ * {@link ProcessHandle#descendants()} first and kills every one of them, then the
+ * root.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class ProcessSupervisor {
+
+  /**
+   * Server-wide supervisor ({@code -Dterminal.max.processes}, default 2 × CPU count).
+   */
+  static final ProcessSupervisor DEFAULT = new ProcessSupervisor(Integer.getInteger(
+      "terminal.max.processes", 2 * Runtime.getRuntime().availableProcessors()));
+
+  private final int maxProcesses;
+  private final Semaphore permits;
+  private final Set<Process> live = ConcurrentHashMap.newKeySet();
+  private final Set<Process> shells = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Creates a supervisor.
+   *
+   * @param maxProcesses most child processes alive at the same time
+   */
+  ProcessSupervisor(int maxProcesses) {
+    if (maxProcesses < 1) {
+      throw new IllegalArgumentException("maxProcesses must be >= 1: " + maxProcesses);
+    }
+    this.maxProcesses = maxProcesses;
+    this.permits = new Semaphore(maxProcesses, true);
+  }
+
+  /**
+   * Takes a process slot, waiting in FIFO order if none is free.
+   *
+   * <p>Used directly by persistent-shell sessions, whose commands run inside an existing
+   * shell instead of a new process but still count against the cap.</p>
+   *
+   * @throws InterruptedException if the caller is interrupted while queued
+   */
+  void acquire() throws InterruptedException {
+    if (!permits.tryAcquire()) {
+      Log.info("[supervisor] command queued (live=%d/%d, waiting=%d)",
+          maxProcesses - permits.availablePermits(), maxProcesses,
+          permits.getQueueLength() + 1);
+      permits.acquire();
+    }
+  }
+
+  /**
+   * Returns a slot taken with {@link #acquire()}.
+   */
+  void release() {
+    permits.release();
+  }
+
+  /**
+   * Starts {@code builder} once a process slot is free, waiting in FIFO order otherwise.
+   *
+   * <p>The slot is returned when the process exits (the JDK reaps it and completes
+   * {@link Process#onExit()}), no matter who ends it, or earlier through
+   * {@link #reap(Process)} by a caller that has already seen it exit.</p>
+   *
+   * @param builder the configured process
+   * @return the started process
+   * @throws IOException          if the process cannot be started
+   * @throws InterruptedException if the caller is interrupted while queued
+   */
+  Process start(ProcessBuilder builder) throws IOException, InterruptedException {
+    acquire();
+
+    Process process;
+    try {
+      process = builder.start();
+    } catch (IOException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+    live.add(process);
+    process.onExit().thenRun(() -> reap(process));
+    return process;
+  }
+
+  /**
+   * Returns the slot of a process that has exited. The caller that just saw
+   * {@code waitFor()} return uses this so the session's next command does not queue
+   * behind the JDK's asynchronous {@code onExit} notification. Idempotent.
+   *
+   * <p>Synchronized so that whichever caller loses the race returns only after the
+   * winner has released the slot.</p>
+   *
+   * @param process a process returned by {@link #start(ProcessBuilder)}
+   */
+  synchronized void reap(Process process) {
+    if (!process.isAlive() && live.remove(process)) {
+      permits.release();
+    }
+  }
+
+  /**
+   * Starts a session's persistent shell. It is tracked (killed by {@link #killAll()})
+   * but holds no slot while idle; its commands take slots with {@link #acquire()}.
+   *
+   * @param builder the configured shell process
+   * @return the started shell
+   * @throws IOException if the shell cannot be started
+   */
+  Process startShell(ProcessBuilder builder) throws IOException {
+    Process process = builder.start();
+    shells.add(process);
+    process.onExit().thenRun(() -> shells.remove(process));
+    return process;
+  }
+
+  /**
+   * Kills {@code root} and every process below it.
+   *
+   * <p>Descendants are collected before anything is killed: once the root dies its
+   * children are reparented and no longer show up as its descendants.</p>
+   *
+   * @param root the process tree to kill
+   */
+  static void killTree(ProcessHandle root) {
+    ProcessHandle[] descendants = root.descendants().toArray(ProcessHandle[]::new);
+    for (ProcessHandle descendant : descendants) {
+      descendant.destroyForcibly();
+    }
+    root.destroyForcibly();
+  }
+
+  /**
+   * Kills every live process tree, e.g. on server shutdown.
+   */
+  void killAll() {
+    for (Process process : live) {
+      killTree(process.toHandle());
+    }
+    for (Process shell : shells) {
+      killTree(shell.toHandle());
+    }
+  }
+
+  /**
+   * Number of child processes currently alive (commands plus persistent shells).
+   */
+  int liveCount() {
+    return live.size() + shells.size();
+  }
+
+  /**
+   * Number of sessions waiting for a process slot.
+   */
+  int queuedCount() {
+    return permits.getQueueLength();
+  }
+
+}
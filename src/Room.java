@@ -0,0 +1,178 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Room - The subscribers of one broadcast room, split by event loop.
+ *
+ * <p>Every {@link EventLoop} owns one shard of the room: the members whose connections
+ * live on that loop. A shard is only ever touched by its own loop thread, so joining,
+ * leaving and delivering need no locks. Publishing sends one task per loop, not one per
+ * subscriber:</p>
+ * <pre>
+ * publisher on loop 1 ── encode once ──→ SharedPayload
+ *                                          │
+ *        ┌─────────────────────────────────┼──────────────────────────────┐
+ *        ▼ inline (same loop)              ▼ loop 2.execute(deliver)      ▼ loop N ...
+ *   shard 1: enqueue view × members   shard 2: enqueue view × members
+ *        └── flushed at the end of each loop's batch: one write per subscriber
+ * </pre>
+ *
+ * <p>Messages from one publisher reach every subscriber in the order they were sent: a
+ * loop runs its tasks in FIFO order. Rooms live in a {@link Directory}: created on first
+ * join, removed when the last member leaves, so clients joining made-up names cannot
+ * grow the server without bound.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class Room {
+
+  private final String name;
+  private final Shard[] shards;
+
+  /**
+   * Members across all loops, counted by the {@link Directory}; only changed inside its
+   * per-name {@code compute}, which also decides when the room goes away.
+   */
+  private int references;
+
+  /**
+   * Rooms by name, shared by every loop.
+   */
+  static final class Directory {
+    private final ConcurrentHashMap<String, Room> rooms = new ConcurrentHashMap<>();
+    private final EventLoop[] loops;
+
+    /**
+     * Creates an empty directory.
+     *
+     * @param loops every loop that may own members, passed to each new {@link Room}
+     */
+    Directory(EventLoop[] loops) {
+      this.loops = loops;
+    }
+
+    /**
+     * Finds or creates a room and counts one more member in it. Pair with
+     * {@link #release}.
+     */
+    Room acquire(String name) {
+      return rooms.compute(name, (n, room) -> {
+        Room r = room != null ? room : new Room(n, loops);
+        r.references++;
+        return r;
+      });
+    }
+
+    /**
+     * Counts one member less in {@code room}; the last one out removes it. A concurrent
+     * {@link #acquire} of the same name then creates a fresh room.
+     */
+    void release(Room room) {
+      rooms.computeIfPresent(room.name, (n, r) -> r == room && --r.references == 0 ? null : r);
+    }
+
+    /**
+     * Number of rooms with at least one member.
+     */
+    int size() {
+      return rooms.size();
+    }
+  }
+
+  /**
+   * Members of the room on one loop.
+   */
+  private static final class Shard {
+    final EventLoop loop;
+    final List<BroadcastConnection> members = new ArrayList<>();  // loop thread only
+    volatile int size;  // read by publishers on other loops to skip empty shards
+
+    Shard(EventLoop loop) {
+      this.loop = loop;
+    }
+
+    void deliver(SharedPayload payload) {
+      for (int i = 0; i < members.size(); i++) {
+        members.get(i).deliver(payload);
+      }
+    }
+  }
+
+  /**
+   * Creates an empty room.
+   *
+   * @param name  the room's name
+   * @param loops every loop that may own members, indexed like
+   *              {@link BroadcastConnection#loopIndex()}
+   */
+  Room(String name, EventLoop[] loops) {
+    this.name = name;
+    this.shards = new Shard[loops.length];
+    for (int i = 0; i < loops.length; i++) {
+      shards[i] = new Shard(loops[i]);
+    }
+  }
+
+  String name() {
+    return name;
+  }
+
+  /**
+   * Adds a member. Called on the member's loop.
+   */
+  void join(BroadcastConnection member) {
+    Shard shard = shards[member.loopIndex()];
+    shard.members.add(member);
+    shard.size = shard.members.size();
+  }
+
+  /**
+   * Removes a member. Called on the member's loop.
+   */
+  void leave(BroadcastConnection member) {
+    Shard shard = shards[member.loopIndex()];
+    shard.members.remove(member);
+    shard.size = shard.members.size();
+  }
+
+  /**
+   * Number of members across all loops; approximate while members come and go.
+   */
+  int size() {
+    int total = 0;
+    for (Shard shard : shards) {
+      total += shard.size;
+    }
+    return total;
+  }
+
+  /**
+   * Delivers a sealed payload to every member, the publisher included. Called on the
+   * publisher's loop; the caller keeps its own reference and releases it afterwards.
+   *
+   * @param payload the encoded message
+   */
+  void publish(SharedPayload payload) {
+    for (Shard shard : shards) {
+      if (shard.size == 0) {
+        continue;
+      }
+      if (shard.loop.inLoop()) {
+        shard.deliver(payload);
+      } else {
+        SharedPayload held = payload.hold();
+        shard.loop.execute(() -> {
+          try {
+            shard.deliver(held);
+          } finally {
+            held.release();
+          }
+        });
+      }
+    }
+  }
+
+}
@@ -1 +1,213 @@
-public class SequentialEchoServer {}
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * SequentialEchoServer - Çoklu Client, Sıralı İşlem
+ *
+ * <p><b>LoopingEchoServer'dan Farkı:</b>
+ * <ul>
+ *   <li>Bir client bitince server kapanmaz, sıradaki client'ı kabul eder</li>
+ *   <li>Tek bir ServerSocket, JVM ömrü boyunca bağlı kalır (yeniden bind yok)</li>
+ *   <li>Backlog, SO_REUSEADDR ve TCP_NODELAY ayarlanır</li>
+ *   <li>Her bağlantı için accept → ilk byte ve toplam servis süresi loglanır</li>
+ * </ul>
+ *
+ * <p><b>Yeni Kavramlar:</b>
+ * <ul>
+ *   <li>Accept loop: {@code while (true) { accept(); serve(); }}</li>
+ *   <li>Backlog: accept() edilmeyi bekleyen bağlantı kuyruğu (kernel tarafında)</li>
+ *   <li>SO_REUSEADDR: Restart sonrası TIME_WAIT yüzünden "Address already in use" almamak</li>
+ *   <li>TCP_NODELAY: Nagle algoritmasını kapatır, küçük echo cevapları beklemeden gider</li>
+ * </ul>
+ *
+ * <p><b>Test Senaryosu:</b>
+ * <pre>
+ * Terminal 1:
+ *   javac SequentialEchoServer.java
+ *   java SequentialEchoServer
+ *
+ * Terminal 2:                     Terminal 3:
+ *   nc localhost 8004               nc localhost 8004
+ *   Hello → Echo: Hello             (bekler - backlog'da)
+ *   quit                            Hi → Echo: Hi   (şimdi sıra onda)
+ * </pre>
+ *
+ * <p><b>Ayarlar (system property):</b>
+ * <pre>
+ *   -Dbacklog=128        accept kuyruğu uzunluğu (varsayılan 50)
+ *   -Dreuse.address=true SO_REUSEADDR (varsayılan true)
+ *   -Dtcp.nodelay=true   TCP_NODELAY (varsayılan true)
+ * </pre>
+ *
+ * <p><b>Limitasyonlar:</b>
+ * <ul>
+ *   <li>Aynı anda yine tek client servis edilir (sıralı / blocking)</li>
+ *   <li>Yavaş bir client, arkadaki herkesi bekletir (head-of-line blocking)</li>
+ *   <li>Bu server, concurrent server'ları ölçmek için baseline'dır</li>
+ * </ul>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class SequentialEchoServer {
+
+  /**
+   * Server port numarası (8001 BasicEcho, 8002 LoopingEcho, 8003 Terminal).
+   */
+  private static final int PORT = 8004;
+
+  /**
+   * Kernel accept kuyruğu uzunluğu.
+   *
+   * <p>Server bir client ile meşgulken gelen bağlantılar burada bekler.
+   * Kuyruk dolarsa yeni bağlantılar reddedilir (veya SYN'ler düşürülür).
+   */
+  private static final int BACKLOG = Integer.getInteger("backlog", 50);
+
+  private static final boolean REUSE_ADDRESS =
+      Boolean.parseBoolean(System.getProperty("reuse.address", "true"));
+
+  private static final boolean TCP_NODELAY =
+      Boolean.parseBoolean(System.getProperty("tcp.nodelay", "true"));
+
+  /**
+   * Server'ın ana giriş noktası.
+   *
+   * <p><b>Akış:</b>
+   * <ol>
+   *   <li>Bağlanmamış ServerSocket oluştur, SO_REUSEADDR ayarla</li>
+   *   <li>bind(port, backlog)</li>
+   *   <li>LOOP: accept → client'ı servis et → kapat → tekrar accept</li>
+   * </ol>
+   *
+   * @param args Komut satırı argümanları (kullanılmıyor)
+   */
+  public static void main(String[] args) {
+
+    System.out.println("Multiple Clients, Sequential Processing");
+    System.out.println("Starting TCP Server on port: " + PORT + "...\n");
+
+    /*
+     * Neden new ServerSocket(PORT) değil?
+     * -----------------------------------
+     * SO_REUSEADDR bind()'dan ÖNCE ayarlanmalı. new ServerSocket(PORT) hemen
+     * bind eder, bu yüzden önce bağlanmamış socket açıp sonra bind ediyoruz.
+     */
+    try (ServerSocket serverSocket = new ServerSocket()) {
+
+      Metrics.startEndpoint();
+      serverSocket.setReuseAddress(REUSE_ADDRESS);
+      serverSocket.bind(new InetSocketAddress(PORT), BACKLOG);
+
+      System.out.println("Server Listening on port " + PORT + " (backlog=" + BACKLOG + ")");
+
+      long served = 0;
+      while (true) {
+        System.out.println("Waiting for client connection... \n");
+
+        Socket clientSocket = serverSocket.accept();
+        long acceptedAt = System.nanoTime();
+        served++;
+        Metrics.DEFAULT.connectionOpened();
+
+        try (clientSocket) {
+          serve(clientSocket, served, acceptedAt);
+        } catch (IOException ex) {
+          /*
+           * Bir client'ın hatası server'ı düşürmemeli.
+           * Logla, sıradaki client'a geç. close() hatası da buraya düşer.
+           */
+          Log.warn("[#%d] Client error: %s", served, ex.getMessage());
+        } finally {
+          Metrics.DEFAULT.connectionClosed();
+        }
+      }
+
+    } catch (IOException ex) {
+      System.err.println("Server error: " + ex.getMessage());
+      ex.printStackTrace();
+    }
+  }
+
+  /**
+   * Tek bir client'ı "quit" veya disconnect olana kadar servis eder.
+   *
+   * <p><b>İlk byte ölçümü:</b> Ham InputStream'i BufferedInputStream ile sarıp
+   * {@code mark(1) / read() / reset()} yapıyoruz. Böylece ilk byte'ın geldiği anı
+   * yakalıyoruz ama byte'ı tüketmiyoruz; {@link LineCodec} onu yine okuyor.
+   *
+   * @param clientSocket kabul edilmiş client bağlantısı
+   * @param id           loglar için bağlantı sıra numarası
+   * @param acceptedAt   accept() dönüşündeki {@link System#nanoTime()} değeri
+   * @throws IOException okuma/yazma hatası
+   */
+  private static void serve(Socket clientSocket, long id, long acceptedAt) throws IOException {
+    clientSocket.setTcpNoDelay(TCP_NODELAY);
+    Log.info("[#%d] Client Connected: %s", id, clientSocket.getInetAddress());
+
+    /*
+     * Sıralı server'da tek bir yavaş/idle client herkesi bekletir; deadline'lar
+     * onu zamanında kapatır (bkz. ConnectionDeadlines).
+     */
+    ConnectionDeadlines deadlines =
+        ConnectionDeadlines.watch(clientSocket, "client #" + id);
+    ConnectionRegistry.Entry session = ConnectionRegistry.DEFAULT.register("echo",
+        clientSocket.getInetAddress(), clientSocket.getPort(), clientSocket);
+    try {
+      echoLoop(clientSocket, id, acceptedAt, deadlines, session);
+    } finally {
+      deadlines.stop();
+      ConnectionRegistry.DEFAULT.unregister(session);
+    }
+  }
+
+  /**
+   * {@link #serve} gövdesi: ilk byte ölçümü ve echo döngüsü.
+   */
+  private static void echoLoop(Socket clientSocket, long id, long acceptedAt,
+                               ConnectionDeadlines deadlines, ConnectionRegistry.Entry session)
+      throws IOException {
+    BufferedInputStream raw = new BufferedInputStream(clientSocket.getInputStream());
+    LineCodec codec =
+        new LineCodec(raw, clientSocket.getOutputStream(), 8192, deadlines, session);
+
+    long firstByteNanos = -1;
+    deadlines.idle();
+    raw.mark(1);
+    if (raw.read() != -1) {
+      firstByteNanos = System.nanoTime() - acceptedAt;
+      raw.reset();
+    }
+
+    long messages = 0;
+    int batch = 0;
+    long batchStart = 0;
+    while (codec.readLine() && !codec.lineIsQuit()) {
+      if (batch++ == 0) {
+        batchStart = Metrics.now();
+      }
+      codec.writeEcho();
+      if (!EchoHandler.PIPELINING || !codec.hasBufferedLine()) {
+        codec.flush();
+        Metrics.DEFAULT.echoed(batch, batchStart);
+        batch = 0;
+      }
+      messages++;
+    }
+    codec.flush();
+    if (batch > 0) {
+      Metrics.DEFAULT.echoed(batch, batchStart);
+    }
+
+    long totalNanos = System.nanoTime() - acceptedAt;
+    Log.info("[#%d] Client done: messages=%d, accept->first byte=%s, service=%.3f ms",
+        id, messages,
+        firstByteNanos < 0 ? "n/a" : String.format("%.3f ms", firstByteNanos / 1e6),
+        totalNanos / 1e6);
+  }
+
+}
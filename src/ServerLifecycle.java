@@ -0,0 +1,250 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * ServerLifecycle - Start, stop accepting, drain with a deadline, force-close.
+ *
+ * <p>Without it, {@code SIGTERM} (a deploy, a rolling restart, Ctrl+C) kills the JVM with
+ * requests half-processed and buffered responses unsent. With
+ * {@link #installShutdownHook()} the JVM's shutdown hook runs the whole sequence
+ * first:</p>
+ * <pre>
+ * RUNNING ──SIGTERM──→ stopAccepting()   listeners closed; new connects are refused
+ *                        │
+ *                        ▼
+ *                      DRAINING          every connection's INPUT is shut down:
+ *                        │                 - idle ones see EOF at once and close
+ *                        │                 - busy ones finish the request in hand,
+ *                        │                   flush their output, then see EOF
+ *                        │
+ *                        ├─ all closed ─────────────────→ report: drained=N cut=0
+ *                        └─ deadline (-Dshutdown.drain.ms, default 10 s)
+ *                             │
+ *                             ▼
+ *                      forceClose()      remaining sockets closed → cut=M
+ *                        │
+ *                        ▼
+ *                      STOPPED           onStop actions (e.g. kill child processes)
+ * </pre>
+ *
+ * <p>Shutting down the <em>input</em> instead of closing the socket is what makes the
+ * drain graceful: a blocked {@code read} returns end-of-stream, so every server's normal
+ * "client went away" path runs, and writes still work until the connection closes
+ * itself. Bytes the client sent but the server has not read yet are discarded; the
+ * client sees the connection close and can retry on another instance.</p>
+ *
+ * <p>Connection handlers {@link #register} their socket and close the returned handle
+ * when done. Registration is cheap, so handlers do it whether or not a hook is
+ * installed.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class ServerLifecycle {
+
+  enum State { RUNNING, DRAINING, STOPPED }
+
+  /**
+   * Process-wide lifecycle; servers share it like {@link Metrics#DEFAULT}.
+   */
+  static final ServerLifecycle DEFAULT = new ServerLifecycle();
+
+  /**
+   * How long {@link #shutdown()} waits for connections to finish before cutting them.
+   */
+  static final long DRAIN_MILLIS = Long.getLong("shutdown.drain.ms", 10_000);
+
+  private final List<Closeable> listeners = new CopyOnWriteArrayList<>();
+  private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+  private final List<Runnable> onStop = new CopyOnWriteArrayList<>();
+  private volatile State state = State.RUNNING;
+  private int drained;  // guarded by this
+  private int cut;      // guarded by this
+
+  /**
+   * A registered connection. {@link #close()} when the handler is done with it.
+   */
+  final class Connection implements AutoCloseable {
+    private final Socket socket;
+
+    private Connection(Socket socket) {
+      this.socket = socket;
+    }
+
+    /**
+     * Deregisters the connection. During a drain it counts as drained.
+     */
+    @Override
+    public void close() {
+      if (connections.remove(this)) {
+        synchronized (ServerLifecycle.this) {
+          if (state == State.DRAINING) {
+            drained++;
+          }
+          ServerLifecycle.this.notifyAll();
+        }
+      }
+    }
+  }
+
+  private ServerLifecycle() {
+  }
+
+  /**
+   * Registers a listening socket; {@link #stopAccepting()} closes it.
+   *
+   * @param listener a bound {@code ServerSocket} or {@code ServerSocketChannel}
+   */
+  void start(Closeable listener) {
+    listeners.add(listener);
+    if (state != State.RUNNING) {
+      closeQuietly(listener);
+    }
+  }
+
+  /**
+   * Tracks a client connection. If the server is already draining, its input is shut
+   * down right away so the handler finishes without taking new requests.
+   *
+   * @param socket the accepted client socket
+   * @return a handle to close when the handler is done
+   */
+  Connection register(Socket socket) {
+    Connection connection = new Connection(socket);
+    connections.add(connection);
+    if (state != State.RUNNING) {
+      shutdownInput(socket);
+    }
+    return connection;
+  }
+
+  /**
+   * Adds an action to run once all connections are closed or cut (e.g. killing child
+   * processes). Actions run on the shutdown-hook thread in registration order.
+   */
+  void onStop(Runnable action) {
+    onStop.add(action);
+  }
+
+  /**
+   * Whether the server still accepts new work. Accept loops use this to tell a
+   * shutdown from a real listener failure.
+   */
+  boolean isRunning() {
+    return state == State.RUNNING;
+  }
+
+  /**
+   * Runs {@link #shutdown()} from a JVM shutdown hook ({@code SIGTERM}, {@code SIGINT},
+   * {@code System.exit}).
+   */
+  void installShutdownHook() {
+    Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "server-shutdown"));
+  }
+
+  /**
+   * The full sequence: stop accepting, drain for {@link #DRAIN_MILLIS}, force-close,
+   * run {@link #onStop} actions and log the report.
+   */
+  void shutdown() {
+    long start = System.nanoTime();
+    int open = connections.size();
+    Log.info("[lifecycle] shutting down: %d open connections, draining up to %d ms",
+        open, DRAIN_MILLIS);
+
+    stopAccepting();
+    boolean clean = drain(DRAIN_MILLIS);
+    if (!clean) {
+      forceClose();
+    }
+    state = State.STOPPED;
+    for (Runnable action : onStop) {
+      try {
+        action.run();
+      } catch (RuntimeException e) {
+        Log.error("[lifecycle] stop action failed: %s", e);
+      }
+    }
+
+    synchronized (this) {
+      Log.info("[lifecycle] stopped in %d ms: drained=%d cut=%d",
+          (System.nanoTime() - start) / 1_000_000, drained, cut);
+    }
+    Log.flush();
+  }
+
+  /**
+   * Closes every registered listener. Already-accepted connections are unaffected.
+   */
+  void stopAccepting() {
+    if (state == State.RUNNING) {
+      state = State.DRAINING;
+    }
+    for (Closeable listener : listeners) {
+      closeQuietly(listener);
+    }
+  }
+
+  /**
+   * Shuts down the input of every connection and waits for their handlers to finish.
+   *
+   * @param timeoutMillis how long to wait
+   * @return {@code true} if every connection closed in time
+   */
+  boolean drain(long timeoutMillis) {
+    state = State.DRAINING;
+    for (Connection connection : connections) {
+      shutdownInput(connection.socket);
+    }
+    long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+    synchronized (this) {
+      long left;
+      while (!connections.isEmpty() && (left = deadline - System.nanoTime()) > 0) {
+        try {
+          wait(Math.max(1, left / 1_000_000));
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return connections.isEmpty();
+        }
+      }
+      return connections.isEmpty();
+    }
+  }
+
+  /**
+   * Closes every connection still open. Their handlers see a socket error.
+   */
+  void forceClose() {
+    for (Connection connection : connections) {
+      if (connections.remove(connection)) {
+        synchronized (this) {
+          cut++;
+        }
+        closeQuietly(connection.socket);
+      }
+    }
+  }
+
+  private static void shutdownInput(Socket socket) {
+    try {
+      socket.shutdownInput();
+    } catch (IOException ignored) {
+      // Already closed or closing: nothing left to drain
+    }
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException ignored) {
+      // Shutting down; the owner sees the failure if it matters
+    }
+  }
+
+}
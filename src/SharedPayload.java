@@ -0,0 +1,103 @@
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SharedPayload - One encoded message, sent to many connections without copying it.
+ *
+ * <p>A broadcast to N subscribers encodes the message once into a pooled direct buffer.
+ * Every subscriber's {@link OutboundQueue} gets a read-only view of it: its own position
+ * and limit over the same bytes, so each socket write can progress independently. The
+ * buffer returns to {@link BufferPool} when the last view has been written or
+ * discarded:</p>
+ * <pre>
+ *                 ┌─ view (pos 0)    → subscriber 1 queue ─┐
+ * encode once ──→ ├─ view (pos 17)   → subscriber 2 queue ─┼─ last release() → pool
+ *   refs = 1 + N  └─ view (pos 0)    → subscriber N queue ─┘
+ * </pre>
+ *
+ * <p>A view is a small {@code ByteBuffer} object, not a copy; and since the bytes are in a
+ * direct buffer, the JDK writes them to each socket without staging them in a temporary
+ * native buffer first. Reference counting is atomic, so views may live on different event
+ * loops.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class SharedPayload {
+
+  private static final BufferPool POOL = BufferPool.DEFAULT;
+
+  private final ByteBuffer bytes;
+  private final AtomicInteger refs = new AtomicInteger(1);
+
+  private SharedPayload(ByteBuffer bytes) {
+    this.bytes = bytes;
+  }
+
+  /**
+   * Borrows a pooled buffer with room for {@code capacity} bytes. The caller fills
+   * {@link #buffer()} and then calls {@link #seal()}; it holds one reference until it
+   * calls {@link #release()}.
+   */
+  static SharedPayload allocate(int capacity) {
+    return new SharedPayload(POOL.acquire(capacity));
+  }
+
+  /**
+   * The buffer to encode into, in "fill" mode. Only valid before {@link #seal()}.
+   */
+  ByteBuffer buffer() {
+    return bytes;
+  }
+
+  /**
+   * Ends encoding: flips the buffer so views cover exactly the encoded bytes.
+   *
+   * @return this payload
+   */
+  SharedPayload seal() {
+    bytes.flip();
+    return this;
+  }
+
+  /**
+   * Number of encoded bytes.
+   */
+  int length() {
+    return bytes.limit();
+  }
+
+  /**
+   * Takes a reference and returns a read-only view of the encoded bytes; pair with one
+   * {@link #release()}.
+   */
+  ByteBuffer retain() {
+    refs.incrementAndGet();
+    return bytes.asReadOnlyBuffer();
+  }
+
+  /**
+   * Takes a reference without a view, e.g. for a task that hands the payload to another
+   * event loop; pair with one {@link #release()}.
+   *
+   * @return this payload
+   */
+  SharedPayload hold() {
+    refs.incrementAndGet();
+    return this;
+  }
+
+  /**
+   * Drops a reference; the last one returns the buffer to the pool.
+   */
+  void release() {
+    int left = refs.decrementAndGet();
+    if (left == 0) {
+      POOL.release(bytes);
+    } else if (left < 0) {
+      throw new IllegalStateException("SharedPayload released more often than retained");
+    }
+  }
+
+}
@@ -0,0 +1,75 @@
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * TerminalModeBenchmark - Commands per second: fork-per-command vs persistent shell.
+ *
+ * <p>Runs the same command many times through
+ * {@link BasicTerminalServer#runCommand(String, TerminalSession, boolean)} in both modes,
+ * with output discarded, so the numbers show process handling cost only (no network):</p>
+ * <pre>
+ * fork   sh -c command   → fork + exec sh, sh forks/execs the command (unless built in)
+ * shell  write to stdin  → the running sh runs the command, marker ends it
+ * </pre>
+ *
+ * <h3>Usage:</h3>
+ * <pre>
+ * java TerminalModeBenchmark                 (2000 × "true")
+ * java TerminalModeBenchmark 500 "ls /tmp"   (500 × "ls /tmp")
+ * </pre>
+ *
+ * <p>With a shell built-in like {@code true} or {@code echo} the shell mode starts no
+ * process at all; with an external program like {@code ls} both modes fork the program
+ * and the gap is the extra shell per command.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class TerminalModeBenchmark {
+
+  private static final int WARMUP = 50;
+
+  /**
+   * Benchmark entry point.
+   *
+   * @param args [number of commands] [command]
+   * @throws IOException if a command cannot be run
+   */
+  public static void main(String[] args) throws IOException {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+    String command = args.length > 1 ? args[1] : "true";
+
+    System.out.println("Command: \"" + command + "\" × " + count);
+
+    double fork = measure("fork", command, count, false);
+    double shell = measure("shell", command, count, true);
+
+    System.out.printf("shell / fork = %.1fx%n", shell / fork);
+  }
+
+  private static double measure(String name, String command, int count, boolean shellMode)
+      throws IOException {
+    TerminalSession session = new TerminalSession(
+        new TerminalOutput(OutputStream.nullOutputStream()), new ProcessSupervisor(1));
+    try {
+      for (int i = 0; i < WARMUP; i++) {
+        BasicTerminalServer.runCommand(command, session, shellMode);
+      }
+
+      long start = System.nanoTime();
+      for (int i = 0; i < count; i++) {
+        BasicTerminalServer.runCommand(command, session, shellMode);
+      }
+      long elapsed = System.nanoTime() - start;
+
+      double perSecond = count * 1e9 / elapsed;
+      System.out.printf("%-6s %10.0f commands/s   %8.1f µs/command%n",
+          name, perSecond, elapsed / 1e3 / count);
+      return perSecond;
+    } finally {
+      session.close();
+    }
+  }
+
+}
@@ -0,0 +1,237 @@
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * TerminalOutput - Buffered, thread-safe byte sink for one terminal session's socket.
+ *
+ * <p>Replaces the session's {@code PrintWriter}. Command output is relayed as raw byte
+ * chunks (no {@code readLine()} decode, no re-encode), and the stdout and stderr pumps of
+ * a running command write to the same socket concurrently, so every write is a
+ * {@code synchronized} chunk.</p>
+ *
+ * <h3>Flushing:</h3>
+ * <ul>
+ *   <li>Bytes collect in a buffer and go out when it fills.</li>
+ *   <li>{@link #flushIfIdle(InputStream)} flushes when the relayed process stream has
+ *       nothing more available (the next read would block), or when the latency bound
+ *       ({@code -Dterminal.flush.latency.ms}) has passed.</li>
+ *   <li>The session flushes explicitly before every blocking read of a command.</li>
+ * </ul>
+ *
+ * <h3>Backpressure:</h3>
+ * <p>Writes block when the client reads slowly and the socket send buffer is full. The
+ * pump that is writing stops reading its pipe, the pipe fills, and the child process
+ * blocks on its own {@code write}. Memory stays constant no matter how much a command
+ * prints. A client that stops reading altogether is disconnected once a write has been
+ * blocked for the write deadline ({@link ConnectionDeadlines}).</p>
+ *
+ * <h3>Files:</h3>
+ * <p>{@link #transferFrom} sends a file region with {@link FileChannel#transferTo}
+ * straight into the socket's channel. On Linux that is {@code sendfile}: the kernel
+ * moves page-cache pages to the socket, and the bytes never enter the JVM.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class TerminalOutput {
+
+  /**
+   * Size of the output buffer in front of the socket.
+   */
+  static final int BUFFER_SIZE = 16 * 1024;
+
+  /**
+   * Longest time command output may sit in the buffer while a command keeps printing.
+   */
+  private static final long FLUSH_LATENCY_NANOS =
+      Long.getLong("terminal.flush.latency.ms", 50) * 1_000_000L;
+
+  private final OutputStream out;
+  private final WritableByteChannel channel;  // socket channel, or null: copy through out
+  private final ConnectionDeadlines deadlines;
+  private final ConnectionRegistry.Entry session;  // per-connection byte count, or null
+  private long lastFlush = System.nanoTime();
+
+  TerminalOutput(OutputStream socketOutput) {
+    this(socketOutput, null);
+  }
+
+  /**
+   * Creates an output whose socket writes are guarded by the write deadline, so a
+   * client that stops reading is disconnected instead of stalling its command forever.
+   *
+   * @param socketOutput the client socket's stream
+   * @param deadlines    the session's deadlines, or {@code null}
+   */
+  TerminalOutput(OutputStream socketOutput, ConnectionDeadlines deadlines) {
+    this(socketOutput, null, deadlines, null);
+  }
+
+  /**
+   * Creates the output of a client socket. If the socket was accepted through a
+   * {@code ServerSocketChannel} its channel is used for zero-copy {@link #transferFrom}.
+   *
+   * @param socket    the client socket
+   * @param deadlines the session's deadlines, or {@code null}
+   * @param session   the connection's {@link ConnectionRegistry} entry, or {@code null}
+   * @throws IOException if the socket is closed
+   */
+  TerminalOutput(Socket socket, ConnectionDeadlines deadlines, ConnectionRegistry.Entry session)
+      throws IOException {
+    this(socket.getOutputStream(), socket.getChannel(), deadlines, session);
+  }
+
+  private TerminalOutput(OutputStream socketOutput, WritableByteChannel channel,
+      ConnectionDeadlines deadlines, ConnectionRegistry.Entry session) {
+    OutputStream socket = deadlines == null ? socketOutput : new Guarded(socketOutput, deadlines);
+    this.out = new BufferedOutputStream(socket, BUFFER_SIZE);
+    this.channel = channel;
+    this.deadlines = deadlines;
+    this.session = session;
+  }
+
+  /**
+   * Writes a chunk of raw bytes.
+   *
+   * @throws IOException if the client is gone
+   */
+  synchronized void write(byte[] bytes, int offset, int length) throws IOException {
+    out.write(bytes, offset, length);
+    sent(length);
+  }
+
+  /**
+   * Writes a line of text (UTF-8) followed by {@code '\n'}.
+   *
+   * @throws IOException if the client is gone
+   */
+  synchronized void println(String line) throws IOException {
+    byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+    out.write(bytes);
+    out.write('\n');
+    sent(bytes.length + 1);
+  }
+
+  /**
+   * Writes an empty line.
+   *
+   * @throws IOException if the client is gone
+   */
+  synchronized void println() throws IOException {
+    out.write('\n');
+    sent(1);
+  }
+
+  /**
+   * Sends everything buffered so far.
+   *
+   * @throws IOException if the client is gone
+   */
+  synchronized void flush() throws IOException {
+    out.flush();
+    lastFlush = System.nanoTime();
+  }
+
+  /**
+   * Flushes if {@code source} has no more bytes ready or the latency bound has passed.
+   *
+   * <p>A command like {@code ls -la} prints a burst that goes out as one write, while a
+   * command that prints a line and then sleeps still shows it immediately.</p>
+   *
+   * @param source the process stream being relayed
+   * @throws IOException if the client is gone or {@code source} cannot be polled
+   */
+  synchronized void flushIfIdle(InputStream source) throws IOException {
+    if (source.available() == 0 || System.nanoTime() - lastFlush >= FLUSH_LATENCY_NANOS) {
+      flush();
+    }
+  }
+
+  /**
+   * Sends {@code count} bytes of {@code file} from {@code position}, after everything
+   * buffered so far.
+   *
+   * <p>Each {@code transferTo} call restarts the write deadline, so a large file to a
+   * slow but reading client is fine; a client that stops reading is disconnected as
+   * with any other write. Without a socket channel the bytes are copied through the
+   * buffer instead.</p>
+   *
+   * @param file     the file to send
+   * @param position where to start in the file
+   * @param count    how many bytes to send
+   * @return the bytes sent; less than {@code count} only if the file got shorter
+   * @throws IOException if the client is gone or the file cannot be read
+   */
+  synchronized long transferFrom(FileChannel file, long position, long count)
+      throws IOException {
+    flush();
+    WritableByteChannel target = channel != null ? channel : Channels.newChannel(out);
+    ConnectionDeadlines.Phase previous = deadlines == null ? null : deadlines.phase();
+    long sent = 0;
+    try {
+      while (sent < count) {
+        if (deadlines != null) {
+          deadlines.writing();
+        }
+        long n = file.transferTo(position + sent, count - sent, target);
+        if (n <= 0 && position + sent >= file.size()) {
+          break;  // truncated while we were sending it
+        }
+        sent += n;
+        sent(n);
+      }
+    } finally {
+      if (deadlines != null) {
+        deadlines.restore(previous);
+      }
+    }
+    flush();
+    return sent;
+  }
+
+  private void sent(long n) {
+    Metrics.DEFAULT.bytesOut(n);
+    if (session != null) {
+      session.sent(n);
+    }
+  }
+
+  /**
+   * Socket stream that runs every real write (buffer spill or flush) in the
+   * {@link ConnectionDeadlines.Phase#WRITING} phase, then returns to the caller's phase.
+   */
+  private static final class Guarded extends FilterOutputStream {
+    private final ConnectionDeadlines deadlines;
+
+    Guarded(OutputStream socketOutput, ConnectionDeadlines deadlines) {
+      super(socketOutput);
+      this.deadlines = deadlines;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      ConnectionDeadlines.Phase previous = deadlines.phase();
+      deadlines.writing();
+      try {
+        out.write(b, off, len);
+      } finally {
+        deadlines.restore(previous);
+      }
+    }
+  }
+
+}
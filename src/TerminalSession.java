@@ -0,0 +1,309 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * TerminalSession - Per-client state of a {@link BasicTerminalServer} session.
+ *
+ * <p>Every command is a new process, so a {@code cd} or {@code export} run as a command
+ * only changes that short-lived shell. The session keeps the working directory and the
+ * exported variables itself, applies them to every {@link ProcessBuilder}, and handles
+ * {@code cd} and {@code export} as built-ins:</p>
+ * <pre>
+ * $ cd /tmp            → session cwd = /tmp        (no process started)
+ * $ export NAME=value  → session env NAME=value    (no process started)
+ * $ pwd                → sh -c pwd, directory(/tmp), environment + NAME
+ * </pre>
+ *
+ * <p>In persistent-shell mode ({@code -Dterminal.mode=shell}) the session instead owns one
+ * {@link PersistentShell}, which keeps directory and variables itself, so the built-ins
+ * are not used.</p>
+ *
+ * <h3>Downloads:</h3>
+ * <pre>
+ * $ get big.iso          → OK 734003200\n  followed by exactly that many raw bytes
+ * $ get big.iso 5242880  → OK 728760320\n  the rest, from byte offset 5242880 (resume)
+ * $ get nothing          → ERR no such file: nothing
+ * </pre>
+ * <p>{@link #get} runs in both command modes; relative paths resolve against the
+ * session directory (in shell mode, the directory the server started in). The file
+ * goes out through {@link TerminalOutput#transferFrom}: no process, no decoding, no copy
+ * through the JVM heap.</p>
+ *
+ * <h3>Disconnects:</h3>
+ * <p>The session thread is busy inside a command most of the time, so a separate reader
+ * notices when the client goes away and calls {@link #disconnect()}. That kills the
+ * running process tree and interrupts the session thread, which also cancels a command
+ * still waiting for a slot in the {@link ProcessSupervisor}.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class TerminalSession {
+
+  private final TerminalOutput out;
+  private final ProcessSupervisor supervisor;
+  private final Thread owner;
+
+  private final Map<String, String> environment = new HashMap<>();
+  private Path workingDirectory = Path.of(System.getProperty("user.dir"));
+
+  private PersistentShell shell;
+  private volatile Process current;
+  private volatile boolean disconnected;
+
+  /**
+   * Creates a session owned by the calling thread, which runs its commands.
+   *
+   * @param out        the client's output
+   * @param supervisor the server-wide process supervisor
+   */
+  TerminalSession(TerminalOutput out, ProcessSupervisor supervisor) {
+    this.out = out;
+    this.supervisor = supervisor;
+    this.owner = Thread.currentThread();
+  }
+
+  /**
+   * The client's output.
+   */
+  TerminalOutput out() {
+    return out;
+  }
+
+  /**
+   * Runs {@code command} as a built-in if it is one.
+   *
+   * @param command the command line
+   * @return {@code true} if the command was a built-in and has been handled
+   * @throws IOException if the client is gone
+   */
+  boolean runBuiltin(String command) throws IOException {
+    String[] parts = command.trim().split("\\s+", 2);
+    switch (parts[0]) {
+      case "cd" -> {
+        String target = parts.length > 1 ? parts[1] : System.getProperty("user.home");
+        Path dir = workingDirectory.resolve(target).normalize();
+        if (Files.isDirectory(dir)) {
+          workingDirectory = dir;
+        } else {
+          out.println("cd: no such directory: " + target);
+        }
+        return true;
+      }
+      case "export" -> {
+        if (parts.length < 2 || parts[1].indexOf('=') <= 0) {
+          out.println("usage: export NAME=value");
+        } else {
+          int eq = parts[1].indexOf('=');
+          environment.put(parts[1].substring(0, eq), parts[1].substring(eq + 1));
+        }
+        return true;
+      }
+      default -> {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Sends a file: an {@code OK <length>} line, then {@code length} raw bytes. Errors are
+   * reported as one {@code ERR <reason>} line.
+   *
+   * @param args {@code <path> [offset]}; {@code offset} resumes an interrupted download
+   * @throws EOFException if the file got shorter than announced while it was being sent;
+   *                      the response can no longer be framed, so the session must end
+   * @throws IOException  if the client is gone or the file cannot be read
+   */
+  void get(String args) throws IOException {
+    String[] parts = args.trim().split("\\s+");
+    if (parts[0].isEmpty() || parts.length > 2) {
+      out.println("ERR usage: get <path> [offset]");
+      return;
+    }
+    Path file = workingDirectory.resolve(parts[0]);
+    long offset;
+    try {
+      offset = parts.length > 1 ? Long.parseLong(parts[1]) : 0;
+    } catch (NumberFormatException e) {
+      out.println("ERR bad offset: " + parts[1]);
+      return;
+    }
+    if (Files.isDirectory(file)) {
+      out.println("ERR not a file: " + parts[0]);
+      return;
+    }
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (offset < 0 || offset > size) {
+        out.println("ERR offset out of range: " + offset + " (size " + size + ")");
+        return;
+      }
+      long length = size - offset;
+      out.println("OK " + length);
+      long sent = out.transferFrom(channel, offset, length);
+      if (sent < length) {
+        throw new EOFException(file + " shrank during transfer (" + sent + " of " + length
+            + " bytes sent)");
+      }
+    } catch (NoSuchFileException e) {
+      out.println("ERR no such file: " + parts[0]);
+    } catch (AccessDeniedException e) {
+      out.println("ERR permission denied: " + parts[0]);
+    }
+  }
+
+  /**
+   * Starts {@code builder} in this session's directory and environment, through the
+   * supervisor.
+   *
+   * @param builder the process to start
+   * @return the started process
+   * @throws IOException          if the process cannot be started
+   * @throws InterruptedException if the client disconnected while the command was queued
+   */
+  Process start(ProcessBuilder builder) throws IOException, InterruptedException {
+    builder.directory(workingDirectory.toFile());
+    builder.environment().putAll(environment);
+
+    Process process = supervisor.start(builder);
+    current = process;
+    if (disconnected) {
+      // Lost the race with disconnect(): don't leave the new process behind.
+      ProcessSupervisor.killTree(process.toHandle());
+    }
+    return process;
+  }
+
+  /**
+   * Starts {@code builder} like {@link #start(ProcessBuilder)}, but not as this session's
+   * current command: a disconnect does not kill it. Used for runs whose result is shared
+   * with other sessions ({@link CommandCache}); the caller must
+   * {@link #finished(Process) finish} it.
+   *
+   * @param builder the process to start
+   * @return the started process
+   * @throws IOException          if the process cannot be started
+   * @throws InterruptedException if interrupted while the command was queued
+   */
+  Process startDetached(ProcessBuilder builder) throws IOException, InterruptedException {
+    builder.directory(workingDirectory.toFile());
+    builder.environment().putAll(environment);
+    return supervisor.start(builder);
+  }
+
+  /**
+   * The directory commands start in.
+   */
+  Path workingDirectory() {
+    return workingDirectory;
+  }
+
+  /**
+   * Variables set with {@code export}, added to every command's environment.
+   */
+  Map<String, String> environment() {
+    return Collections.unmodifiableMap(environment);
+  }
+
+  /**
+   * The session's persistent shell, or {@code null} if none is running (not started yet,
+   * or ended by a command such as {@code exit 3}).
+   */
+  PersistentShell shell() {
+    return shell != null && shell.isAlive() ? shell : null;
+  }
+
+  /**
+   * Starts the session's persistent shell in the session's directory and environment.
+   *
+   * @param builder      the shell process ({@code sh} without {@code -c})
+   * @param mergedStderr whether {@code builder} redirects stderr into stdout
+   * @return the new shell
+   * @throws IOException if the shell cannot be started
+   */
+  PersistentShell startShell(ProcessBuilder builder, boolean mergedStderr) throws IOException {
+    builder.directory(workingDirectory.toFile());
+    builder.environment().putAll(environment);
+
+    shell = new PersistentShell(supervisor.startShell(builder), mergedStderr);
+    current = shell.process();
+    if (disconnected) {
+      shell.close();
+    }
+    return shell;
+  }
+
+  /**
+   * Takes a process slot for a command that runs inside the persistent shell.
+   *
+   * @throws InterruptedException if the client disconnected while the command was queued
+   */
+  void acquireSlot() throws InterruptedException {
+    supervisor.acquire();
+  }
+
+  /**
+   * Returns the slot taken by {@link #acquireSlot()}.
+   */
+  void releaseSlot() {
+    supervisor.release();
+  }
+
+  /**
+   * Ends the session's persistent shell, if any. Called when the session ends.
+   */
+  void close() {
+    if (shell != null) {
+      shell.close();
+    }
+  }
+
+  /**
+   * Marks the current command as finished and kills whatever it left running.
+   *
+   * @param process the process returned by {@link #start(ProcessBuilder)} or
+   *                {@link #startDetached(ProcessBuilder)}
+   */
+  void finished(Process process) {
+    if (current == process) {
+      current = null;
+    }
+    if (process.isAlive()) {
+      ProcessSupervisor.killTree(process.toHandle());
+    } else {
+      supervisor.reap(process);
+    }
+  }
+
+  /**
+   * The client went away: kill the running command's tree and wake the session thread.
+   * Safe to call from any thread, more than once.
+   */
+  void disconnect() {
+    disconnected = true;
+    Process process = current;
+    if (process != null) {
+      ProcessSupervisor.killTree(process.toHandle());
+    }
+    owner.interrupt();
+  }
+
+  /**
+   * Whether {@link #disconnect()} has been called.
+   */
+  boolean isDisconnected() {
+    return disconnected;
+  }
+
+}
@@ -0,0 +1,169 @@
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * TimingWheel - Hashed wheel timer: one thread, O(1) schedule, for huge numbers of
+ * coarse timeouts.
+ *
+ * <p>A {@code ScheduledExecutorService} keeps its tasks in a heap: every schedule and
+ * cancel is O(log n) under a lock, and a timer per socket at 100k connections means
+ * 100k heap entries. Connection timeouts do not need millisecond precision, so the
+ * wheel trades precision for constant cost:</p>
+ * <pre>
+ *               current tick
+ *                    ↓
+ *   slot:   0    1    2    3   ...  511      one slot per tick (100 ms)
+ *         [ ]  [a]  [b,c]  [ ]  ...  [d]      wheel turn = 512 × 100 ms ≈ 51 s
+ *
+ *   schedule(task, 30 s) → slot = (current + 300) % 512, rounds = 0
+ *   schedule(task, 5 min) → slot = (current + 3000) % 512, rounds = 5
+ *   each tick: walk one slot; rounds &gt; 0 → rounds--, else run
+ * </pre>
+ *
+ * <p>Timeouts fire up to one tick late, never early. Scheduling from any thread only
+ * appends to a lock-free queue; the wheel thread moves new entries into their slots
+ * before each tick. Tasks run on the wheel thread and must be short (closing a socket
+ * is fine; anything slower should hand off).</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class TimingWheel {
+
+  /**
+   * Process-wide wheel ({@code -Dtimer.tick.ms}, default 100 ms; 512 slots).
+   */
+  static final TimingWheel DEFAULT =
+      new TimingWheel(Long.getLong("timer.tick.ms", 100) * 1_000_000L, 512);
+
+  private final long tickNanos;
+  private final Timeout[] slots;  // heads of doubly linked lists; wheel thread only
+  private final int mask;
+  private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+  private final long startNanos = System.nanoTime();
+  private long tick;  // wheel thread only
+
+  /**
+   * A scheduled task. {@link #cancel()} is safe from any thread; the entry is unlinked
+   * the next time the wheel visits its slot.
+   */
+  static final class Timeout {
+    private final Runnable task;
+    private final long deadline;
+    private long rounds;
+    private Timeout prev;
+    private Timeout next;
+    private int slot = -1;
+    private volatile boolean cancelled;
+
+    private Timeout(Runnable task, long deadline) {
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    void cancel() {
+      cancelled = true;
+    }
+  }
+
+  /**
+   * Creates and starts a wheel.
+   *
+   * @param tickNanos resolution of the wheel
+   * @param slotCount number of slots, rounded up to a power of two
+   */
+  TimingWheel(long tickNanos, int slotCount) {
+    int size = Integer.highestOneBit(Math.max(2, slotCount) * 2 - 1);
+    this.tickNanos = tickNanos;
+    this.slots = new Timeout[size];
+    this.mask = size - 1;
+    Thread.ofPlatform().name("timing-wheel").daemon().start(this::run);
+  }
+
+  /**
+   * Runs {@code task} on the wheel thread after at least {@code delayNanos}.
+   *
+   * @param task       short, non-blocking work
+   * @param delayNanos delay; values below one tick fire on the next tick
+   * @return a handle for {@link Timeout#cancel()}
+   */
+  Timeout schedule(Runnable task, long delayNanos) {
+    Timeout timeout = new Timeout(task, System.nanoTime() + Math.max(0, delayNanos));
+    pending.add(timeout);
+    return timeout;
+  }
+
+  private void run() {
+    while (true) {
+      long nextTickAt = startNanos + (tick + 1) * tickNanos;
+      long sleep;
+      while ((sleep = nextTickAt - System.nanoTime()) > 0) {
+        try {
+          Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+        } catch (InterruptedException e) {
+          return;
+        }
+      }
+      tick++;
+      transferPending();
+      expire(slots[(int) tick & mask]);
+    }
+  }
+
+  /**
+   * Moves newly scheduled timeouts into their slots.
+   */
+  private void transferPending() {
+    Timeout timeout;
+    while ((timeout = pending.poll()) != null) {
+      if (timeout.cancelled) {
+        continue;
+      }
+      // Ticks since start at which the deadline is reached, rounded up
+      long dueTick = (timeout.deadline - startNanos + tickNanos - 1) / tickNanos;
+      long ticks = Math.max(dueTick, tick) - tick;
+      timeout.rounds = ticks / slots.length;
+      int slot = (int) (tick + ticks) & mask;
+      timeout.slot = slot;
+      timeout.next = slots[slot];
+      if (slots[slot] != null) {
+        slots[slot].prev = timeout;
+      }
+      slots[slot] = timeout;
+    }
+  }
+
+  private void expire(Timeout timeout) {
+    while (timeout != null) {
+      Timeout next = timeout.next;
+      if (timeout.cancelled) {
+        unlink(timeout);
+      } else if (timeout.rounds > 0) {
+        timeout.rounds--;
+      } else {
+        unlink(timeout);
+        try {
+          timeout.task.run();
+        } catch (RuntimeException e) {
+          Log.error("Timer task failed: %s", e);
+        }
+      }
+      timeout = next;
+    }
+  }
+
+  private void unlink(Timeout timeout) {
+    if (timeout.prev != null) {
+      timeout.prev.next = timeout.next;
+    } else {
+      slots[timeout.slot] = timeout.next;
+    }
+    if (timeout.next != null) {
+      timeout.next.prev = timeout.prev;
+    }
+    timeout.prev = null;
+    timeout.next = null;
+  }
+
+}
@@ -0,0 +1,219 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.concurrent.atomic.LongAdder;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSessionContext;
+
+/**
+ * TlsContext - Server-side TLS configuration shared by every listener: certificate,
+ * protocols, session cache and session tickets.
+ *
+ * <p>A full TLS handshake costs the server a signature with its private key and an
+ * ephemeral key exchange, around a millisecond of CPU, which is what limits how many
+ * connections per second a TLS server accepts. A client that has talked to us before
+ * can skip that by <em>resuming</em> its session:</p>
+ * <pre>
+ * full (first visit)                      resumed (reconnect)
+ *   ClientHello            ─→               ClientHello + pre_shared_key  ─→
+ *   ←─ ServerHello, Certificate,            ←─ ServerHello, Finished
+ *      CertificateVerify (sign), Finished      (no certificate, no signature)
+ *   Finished               ─→               Finished                       ─→
+ *   ←─ NewSessionTicket (encrypted session state, kept by the client)
+ * </pre>
+ *
+ * <p>With session tickets (on by default) the server keeps nothing per client: the
+ * ticket carries the session state, encrypted with a key only the server knows. TLS 1.2
+ * clients without ticket support fall back to the server's session cache, which is
+ * bounded in size and age.</p>
+ *
+ * <p>The same context serves the non-blocking engines, through {@link TlsChannel}, and
+ * the blocking servers, through {@link #serverSocket}.</p>
+ *
+ * <h3>Configuration (system properties):</h3>
+ * <pre>
+ * -Dtls.keystore=server.p12       PKCS12 keystore with the server key; TLS is off without it
+ * -Dtls.password=changeit         keystore and key password
+ * -Dtls.protocols=TLSv1.3,TLSv1.2
+ * -Dtls.session.cache=20000       most sessions kept by the server (0 = unlimited)
+ * -Dtls.session.timeout.s=3600    how long a session (or ticket) can be resumed
+ * -Dtls.tickets=true              stateless session tickets
+ * </pre>
+ *
+ * <h3>A self-signed keystore for loopback testing:</h3>
+ * <pre>
+ * keytool -genkeypair -alias server -keyalg EC -groupname secp256r1 \
+ *     -dname CN=localhost -ext SAN=dns:localhost,ip:127.0.0.1 -validity 365 \
+ *     -storetype PKCS12 -keystore server.p12 -storepass changeit
+ * java -Dtls.keystore=server.p12 NioEchoServer
+ * openssl s_client -connect localhost:8006 -quiet
+ * </pre>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class TlsContext {
+
+  static final String KEYSTORE = System.getProperty("tls.keystore");
+
+  static final boolean ENABLED = KEYSTORE != null;
+
+  static final String[] PROTOCOLS =
+      System.getProperty("tls.protocols", "TLSv1.3,TLSv1.2").split(",");
+
+  static final int SESSION_CACHE = Integer.getInteger("tls.session.cache", 20_000);
+
+  static final int SESSION_TIMEOUT_SECONDS = Integer.getInteger("tls.session.timeout.s", 3600);
+
+  static final boolean TICKETS =
+      Boolean.parseBoolean(System.getProperty("tls.tickets", "true"));
+
+  static {
+    // Read once by the JDK when the first SSLContext is set up, so set it before that
+    System.setProperty("jdk.tls.server.enableSessionTicketExtension", String.valueOf(TICKETS));
+  }
+
+  /**
+   * Process-wide context from {@code -Dtls.keystore}; {@code null} when TLS is off.
+   */
+  static final TlsContext DEFAULT =
+      ENABLED ? load(Path.of(KEYSTORE), System.getProperty("tls.password", "changeit")) : null;
+
+  private final SSLContext context;
+  private final LongAdder fullHandshakes = new LongAdder();
+  private final LongAdder resumedHandshakes = new LongAdder();
+  private final LongAdder failedHandshakes = new LongAdder();
+
+  /**
+   * Creates a server context.
+   *
+   * @param keyStore keystore holding the server's private key and certificate chain
+   * @param password the key's password
+   * @throws GeneralSecurityException if the key cannot be used
+   */
+  TlsContext(KeyStore keyStore, char[] password) throws GeneralSecurityException {
+    KeyManagerFactory keys =
+        KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+    keys.init(keyStore, password);
+    context = SSLContext.getInstance("TLS");
+    context.init(keys.getKeyManagers(), null, null);
+
+    SSLSessionContext sessions = context.getServerSessionContext();
+    sessions.setSessionCacheSize(SESSION_CACHE);
+    sessions.setSessionTimeout(SESSION_TIMEOUT_SECONDS);
+  }
+
+  /**
+   * Loads a PKCS12 keystore and builds a context from it.
+   *
+   * @throws IllegalStateException if the keystore cannot be read or used
+   */
+  static TlsContext load(Path keystore, String password) {
+    try (InputStream in = Files.newInputStream(keystore)) {
+      KeyStore keyStore = KeyStore.getInstance("PKCS12");
+      keyStore.load(in, password.toCharArray());
+      TlsContext tls = new TlsContext(keyStore, password.toCharArray());
+      Metrics.DEFAULT.gauge("tls_handshakes_full", "Completed full TLS handshakes.",
+          tls.fullHandshakes::sum);
+      Metrics.DEFAULT.gauge("tls_handshakes_resumed",
+          "Completed TLS handshakes that resumed an earlier session.",
+          tls.resumedHandshakes::sum);
+      Metrics.DEFAULT.gauge("tls_handshakes_failed",
+          "Non-blocking TLS connections closed before their handshake completed.",
+          tls.failedHandshakes::sum);
+      Log.info("TLS enabled (%s, session cache %d, tickets %s)", keystore, SESSION_CACHE,
+          TICKETS ? "on" : "off");
+      return tls;
+    } catch (IOException | GeneralSecurityException e) {
+      throw new IllegalStateException("Cannot load TLS keystore " + keystore + ": " + e, e);
+    }
+  }
+
+  /**
+   * A new server-mode engine for one connection.
+   */
+  SSLEngine newEngine() {
+    SSLEngine engine = context.createSSLEngine();
+    engine.setUseClientMode(false);
+    engine.setEnabledProtocols(PROTOCOLS);
+    return engine;
+  }
+
+  /**
+   * Wraps an accepted non-blocking channel; the handshake runs as the connection reads.
+   */
+  TlsChannel wrap(SocketChannel channel) {
+    return new TlsChannel(channel, newEngine(), this);
+  }
+
+  /**
+   * A bound, blocking TLS listener for the thread-per-connection servers. Handshakes
+   * run on the connection's thread, on its first read or write.
+   *
+   * @param port    the port to listen on
+   * @param backlog accept queue length; 0 for the default
+   * @throws IOException if the port cannot be bound
+   */
+  ServerSocket serverSocket(int port, int backlog) throws IOException {
+    SSLServerSocket serverSocket =
+        (SSLServerSocket) context.getServerSocketFactory().createServerSocket();
+    serverSocket.setEnabledProtocols(PROTOCOLS);
+    serverSocket.setReuseAddress(true);
+    serverSocket.bind(new InetSocketAddress(port), backlog);
+    return serverSocket;
+  }
+
+  /**
+   * Counts a completed handshake as full or resumed. A resumed session keeps the creation
+   * time of the session it continues (also across tickets), so it predates the
+   * connection.
+   *
+   * @param session          the negotiated session
+   * @param connectedAtMillis when the connection was accepted
+   */
+  void handshakeFinished(SSLSession session, long connectedAtMillis) {
+    if (session.getCreationTime() < connectedAtMillis) {
+      resumedHandshakes.increment();
+    } else {
+      fullHandshakes.increment();
+    }
+  }
+
+  /**
+   * Counts the handshake of a socket accepted from {@link #serverSocket} once it
+   * completes (on the first read or write).
+   */
+  void track(Socket socket) {
+    if (socket instanceof SSLSocket ssl) {
+      long connectedAtMillis = System.currentTimeMillis();
+      ssl.addHandshakeCompletedListener(
+          event -> handshakeFinished(event.getSession(), connectedAtMillis));
+    }
+  }
+
+  void handshakeFailed() {
+    failedHandshakes.increment();
+  }
+
+  long fullHandshakes() {
+    return fullHandshakes.sum();
+  }
+
+  long resumedHandshakes() {
+    return resumedHandshakes.sum();
+  }
+
+}
@@ -0,0 +1,220 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * TlsHandshakeBenchmark - TLS connections per second: full handshake vs resumed session.
+ *
+ * <p>Starts a TLS echo listener on one in-process {@link EventLoop} (the
+ * {@link NioEchoServer} setup, on an ephemeral loopback port) and opens many short
+ * connections to it, each doing a handshake and one echo:</p>
+ * <pre>
+ * full     the client forgets the session after every connection
+ *          → certificate, signature and key exchange every time
+ * resumed  the client offers the ticket it got from the previous connection
+ *          → key exchange only, no certificate, no signature
+ * </pre>
+ *
+ * <p>The echo matters: a TLS 1.3 server sends the session ticket right after the
+ * handshake, and a client that closes without reading never receives it. The server's
+ * own count of full and resumed handshakes is printed as a check.</p>
+ *
+ * <h3>Usage:</h3>
+ * <pre>
+ * java TlsHandshakeBenchmark              (2000 connections per mode, 4 client threads)
+ * java TlsHandshakeBenchmark 5000 8
+ * java -Dtls.keystore=server.p12 TlsHandshakeBenchmark   (own keystore; default:
+ *                                           a fresh self-signed one from keytool)
+ * </pre>
+ *
+ * <p>Clients and server share the machine, so the absolute numbers are lower than a
+ * dedicated server would reach; the ratio between the modes is the point.</p>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class TlsHandshakeBenchmark {
+
+  private static final int WARMUP = 300;
+
+  private static final byte[] PING = "ping\n".getBytes(StandardCharsets.US_ASCII);
+
+  /**
+   * Benchmark entry point.
+   *
+   * @param args [connections per mode] [client threads]
+   * @throws Exception if the keystore cannot be created or the listener fails
+   */
+  public static void main(String[] args) throws Exception {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+    int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+    String password = System.getProperty("tls.password", "changeit");
+    Path keystore = TlsContext.ENABLED
+        ? Path.of(TlsContext.KEYSTORE)
+        : selfSignedKeystore(password);
+    TlsContext server =
+        TlsContext.ENABLED ? TlsContext.DEFAULT : TlsContext.load(keystore, password);
+
+    // One client context per thread, like separate client processes: each has its own
+    // session cache, so threads do not take each other's tickets
+    SSLSocketFactory[] clients = new SSLSocketFactory[threads];
+    for (int t = 0; t < threads; t++) {
+      clients[t] = trusting(keystore, password);
+    }
+
+    EventLoop loop = new EventLoop("tls-bench-loop");
+    try (ServerSocketChannel listener = ServerSocketChannel.open()) {
+      listener.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+      loop.listen(listener, (owner, channel, key, onClose) ->
+          new EchoConnection(owner, channel, key, Framing.LINE, onClose, server));
+      loop.start();
+      int port = listener.socket().getLocalPort();
+
+      System.out.println("TLS handshakes × " + count + ", " + threads + " client threads, "
+          + "protocols " + String.join(",", TlsContext.PROTOCOLS));
+      run(clients, port, WARMUP, true);
+      run(clients, port, WARMUP, false);  // last: the full run starts with empty caches
+
+      double full = measure("full", server, clients, port, count, false);
+      double resumed = measure("resumed", server, clients, port, count, true);
+      System.out.printf("resumed / full = %.1fx%n", resumed / full);
+    } finally {
+      loop.shutdown();
+    }
+  }
+
+  private static double measure(String name, TlsContext server, SSLSocketFactory[] clients,
+      int port, int count, boolean resume) throws Exception {
+    long fullBefore = server.fullHandshakes();
+    long resumedBefore = server.resumedHandshakes();
+
+    long start = System.nanoTime();
+    LatencyHistogram latencies = run(clients, port, count, resume);
+    long elapsed = System.nanoTime() - start;
+
+    double perSecond = count * 1e9 / elapsed;
+    System.out.printf("%-8s %8.0f handshakes/s   p50 %6.0f µs   p99 %6.0f µs   "
+            + "(server: %d full, %d resumed)%n",
+        name, perSecond, latencies.percentile(50) / 1e3, latencies.percentile(99) / 1e3,
+        server.fullHandshakes() - fullBefore, server.resumedHandshakes() - resumedBefore);
+    return perSecond;
+  }
+
+  /**
+   * Opens {@code count} connections, one thread per client context; returns
+   * connect-to-echo latencies.
+   */
+  private static LatencyHistogram run(SSLSocketFactory[] clients, int port, int count,
+      boolean resume) throws Exception {
+    int threads = clients.length;
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<LatencyHistogram>> results = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        SSLSocketFactory client = clients[t];
+        int share = count / threads + (t < count % threads ? 1 : 0);
+        results.add(pool.submit(() -> {
+          LatencyHistogram histogram = new LatencyHistogram();
+          for (int i = 0; i < share; i++) {
+            long started = System.nanoTime();
+            connectOnce(client, port, resume);
+            histogram.record(System.nanoTime() - started);
+          }
+          return histogram;
+        }));
+      }
+      LatencyHistogram all = new LatencyHistogram();
+      for (Future<LatencyHistogram> result : results) {
+        all.add(result.get());
+      }
+      return all;
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * One connection: handshake, "ping", wait for the echo, close.
+   */
+  private static void connectOnce(SSLSocketFactory client, int port, boolean resume)
+      throws IOException {
+    // Host and port name the session in the client's cache; resumption needs both
+    try (SSLSocket socket = (SSLSocket) client.createSocket("localhost", port)) {
+      socket.setTcpNoDelay(true);
+      OutputStream out = socket.getOutputStream();
+      out.write(PING);
+      out.flush();
+      InputStream in = socket.getInputStream();
+      int b;
+      while ((b = in.read()) != '\n') {
+        if (b < 0) {
+          throw new IOException("Connection closed before the echo");
+        }
+      }
+      if (!resume) {
+        socket.getSession().invalidate();  // drops it from the client's cache
+      }
+    }
+  }
+
+  /**
+   * A client socket factory that trusts the certificate in {@code keystore}.
+   */
+  private static SSLSocketFactory trusting(Path keystore, String password)
+      throws IOException, GeneralSecurityException {
+    KeyStore trusted = KeyStore.getInstance("PKCS12");
+    try (InputStream in = Files.newInputStream(keystore)) {
+      trusted.load(in, password.toCharArray());
+    }
+    TrustManagerFactory trust =
+        TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+    trust.init(trusted);
+    SSLContext context = SSLContext.getInstance("TLS");
+    context.init(null, trust.getTrustManagers(), null);
+    return context.getSocketFactory();
+  }
+
+  /**
+   * Creates a self-signed EC key for localhost with the JDK's keytool.
+   */
+  private static Path selfSignedKeystore(String password)
+      throws IOException, InterruptedException {
+    Path directory = Files.createTempDirectory("tls-bench");
+    Path keystore = directory.resolve("server.p12");
+    Path keytool = Path.of(System.getProperty("java.home"), "bin", "keytool");
+    Process process = new ProcessBuilder(keytool.toString(), "-genkeypair",
+        "-alias", "server", "-keyalg", "EC", "-groupname", "secp256r1",
+        "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1",
+        "-validity", "1", "-storetype", "PKCS12",
+        "-keystore", keystore.toString(), "-storepass", password)
+        .redirectErrorStream(true)
+        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+        .start();
+    if (process.waitFor() != 0) {
+      throw new IOException("keytool failed with exit code " + process.exitValue());
+    }
+    keystore.toFile().deleteOnExit();
+    directory.toFile().deleteOnExit();
+    return keystore;
+  }
+
+}
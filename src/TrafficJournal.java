@@ -0,0 +1,319 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * TrafficJournal - Append-only capture of inbound frames in memory-mapped, rolling
+ * segment files, for offline replay ({@link JournalReplay}).
+ *
+ * <p>Every request a server reads (a line, a terminal command, or a whole length-prefixed
+ * frame, header included) is appended with its connection id and a timestamp. The I/O
+ * thread never takes a lock and never allocates: it reserves space with one atomic add
+ * and copies the bytes into the mapped segment. The kernel writes the dirty pages to
+ * disk in the background.</p>
+ * <pre>
+ * I/O threads                              segment file (mmap, -Djournal.segment.mb)
+ *   pos = tail.getAndAdd(size)   ──→  ┌──────┬────────┬────────┬─────┬───────────┐
+ *   write header + payload at pos      │ TJNL │ record │ record │ ... │ 0 0 0 0 0 │
+ *   store size last (release)          └──────┴────────┴────────┴─────┴───────────┘
+ *                                        8 B
+ * record (8-byte aligned):
+ *   int  size        whole record incl. header; 0 = not written (yet), -1 = segment end
+ *   int  length      payload bytes
+ *   long connection  id from nextConnectionId()
+ *   long timeNanos   wall-clock nanoseconds (epoch)
+ *   byte payload[length], zero padding
+ * </pre>
+ *
+ * <h3>Rolling:</h3>
+ * <p>The thread whose reservation first crosses the end of a segment marks the end,
+ * maps the next segment ({@code journal-000002.log}, ...) and publishes it. Threads that
+ * overshoot meanwhile spin until the new segment is there and retry, so rolling is the
+ * only moment an I/O thread waits, once per segment. If the next segment cannot be
+ * mapped (disk full, no address space), the journal turns itself off instead of
+ * throwing into the server: spinning threads give up, and later records are dropped.</p>
+ *
+ * <h3>Limits:</h3>
+ * <ul>
+ *   <li>Off unless {@code -Djournal.dir} is set; {@link #ENABLED} is a
+ *       {@code static final}, so disabled calls cost nothing.</li>
+ *   <li>A record larger than a segment, and every record after a failed roll, is
+ *       dropped and counted ({@code journal_dropped_records} in {@link Metrics}).</li>
+ *   <li>Records are durable once the OS writes the page cache back; a JVM crash loses
+ *       nothing, a machine crash can lose the last seconds. {@link #force()} (also run
+ *       at exit) writes the current segment out.</li>
+ *   <li>Records carry no protocol: a journal holding frames from a
+ *       {@code -Dframed.port} listener replays only against a listener with the same
+ *       {@code -Dframed.format}. Capture line and framed traffic separately.</li>
+ *   <li>A restart appends new segments to the same directory; timestamps are wall
+ *       clock, so a replay of both runs waits out the downtime. Capture into a fresh
+ *       directory per run.</li>
+ * </ul>
+ *
+ * <h3>Usage:</h3>
+ * <pre>
+ * java -Djournal.dir=/tmp/journal NioEchoServer
+ * java -Dreplay.port=8007 -Dreplay.speed=2 JournalReplay /tmp/journal
+ * </pre>
+ *
+ * @author Gokhan D.
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class TrafficJournal {
+
+  static final String DIRECTORY = System.getProperty("journal.dir");
+
+  static final boolean ENABLED = DIRECTORY != null;
+
+  /**
+   * Segment size ({@code -Djournal.segment.mb}, default 64, at most 1024: a mapped buffer
+   * is indexed by {@code int}).
+   */
+  static final int SEGMENT_BYTES =
+      (int) Math.min(Long.getLong("journal.segment.mb", 64), 1024) * 1024 * 1024;
+
+  /**
+   * Process-wide journal; {@code null} unless {@link #ENABLED}.
+   */
+  static final TrafficJournal DEFAULT = ENABLED ? open(Path.of(DIRECTORY)) : null;
+
+  static final int MAGIC = 0x544A4E4C;  // "TJNL"
+  static final int FILE_HEADER = 8;     // magic, version
+  static final int VERSION = 1;
+  static final int RECORD_HEADER = 24;
+  static final int END_OF_SEGMENT = -1;
+
+  private static final int RETRY = -1;  // reserve(): a newer segment is current
+  private static final int DROP = -2;   // reserve(): the record can never fit
+
+  static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+  /**
+   * Ordered access to a record's size field: written last with release semantics, so a
+   * reader that sees the size also sees the header and payload behind it.
+   */
+  private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ORDER);
+
+  private static final AtomicLong CONNECTIONS = new AtomicLong();
+
+  /**
+   * Wall clock at a {@code System.nanoTime()} of zero, so timestamps need no syscall.
+   */
+  private static final long EPOCH_OFFSET_NANOS =
+      System.currentTimeMillis() * 1_000_000L - System.nanoTime();
+
+  private final Path directory;
+  private volatile Segment current;
+  private final LongAdder dropped = new LongAdder();
+
+  /**
+   * Set once a roll failed; from then on every record is dropped.
+   */
+  private volatile boolean failed;
+
+  /**
+   * One mapped file. {@code tail} only grows; reservations past {@code capacity} fail.
+   */
+  private static final class Segment {
+    final int index;
+    final FileChannel file;
+    final MappedByteBuffer buffer;
+    final int capacity;
+    final AtomicLong tail = new AtomicLong(FILE_HEADER);
+
+    Segment(int index, FileChannel file, MappedByteBuffer buffer) {
+      this.index = index;
+      this.file = file;
+      this.buffer = buffer;
+      this.capacity = buffer.capacity();
+    }
+  }
+
+  private TrafficJournal(Path directory, Segment first) {
+    this.directory = directory;
+    this.current = first;
+  }
+
+  private static TrafficJournal open(Path directory) {
+    try {
+      Files.createDirectories(directory);
+      TrafficJournal journal =
+          new TrafficJournal(directory, mapSegment(directory, lastIndex(directory) + 1));
+      Metrics.DEFAULT.gauge("journal_dropped_records",
+          "Frames not journaled: too large for a segment, or the journal failed.",
+          journal.dropped::sum);
+      Runtime.getRuntime().addShutdownHook(new Thread(journal::force, "journal-force"));
+      Log.info("Journaling inbound traffic to %s",
+          segmentPath(directory, journal.current.index));
+      return journal;
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot open journal in " + directory + ": " + e, e);
+    }
+  }
+
+  /**
+   * A new id for a connection whose frames are journaled.
+   */
+  static long nextConnectionId() {
+    return CONNECTIONS.incrementAndGet();
+  }
+
+  /**
+   * Appends {@code payload[offset, offset+length)} as a frame of {@code connection}.
+   */
+  void record(long connection, byte[] payload, int offset, int length) {
+    Segment segment;
+    int pos;
+    do {
+      segment = current;
+      pos = reserve(segment, length);
+    } while (pos == RETRY);
+    if (pos >= 0) {
+      writeHeader(segment.buffer, pos, length, connection);
+      segment.buffer.put(pos + RECORD_HEADER, payload, offset, length);
+      publish(segment.buffer, pos, length);
+    }
+  }
+
+  /**
+   * Appends {@code length} bytes of {@code payload} from absolute index {@code offset};
+   * the buffer's position is not changed.
+   */
+  void record(long connection, ByteBuffer payload, int offset, int length) {
+    Segment segment;
+    int pos;
+    do {
+      segment = current;
+      pos = reserve(segment, length);
+    } while (pos == RETRY);
+    if (pos >= 0) {
+      writeHeader(segment.buffer, pos, length, connection);
+      segment.buffer.put(pos + RECORD_HEADER, payload, offset, length);
+      publish(segment.buffer, pos, length);
+    }
+  }
+
+  /**
+   * Claims room for a record in {@code segment}.
+   *
+   * @return the record's position, {@link #RETRY} once a newer segment is current, or
+   *         {@link #DROP} if the record can never fit or the journal failed
+   */
+  private int reserve(Segment segment, int length) {
+    int size = recordSize(length);
+    if (failed || size > SEGMENT_BYTES - FILE_HEADER - 4) {
+      dropped.increment();
+      return DROP;
+    }
+    long pos = segment.tail.getAndAdd(size);
+    if (pos + size <= segment.capacity) {
+      return (int) pos;
+    }
+    if (pos <= segment.capacity) {
+      roll(segment, (int) pos);  // this reservation crossed the end: it owns the roll
+    } else {
+      while (current == segment && !failed) {
+        Thread.onSpinWait();
+      }
+    }
+    return RETRY;
+  }
+
+  private void roll(Segment full, int endPos) {
+    if (endPos + 4 <= full.capacity) {
+      INT.setRelease(full.buffer, endPos, END_OF_SEGMENT);
+    }
+    try {
+      current = mapSegment(directory, full.index + 1);
+    } catch (IOException | RuntimeException e) {
+      // Never into the server: this runs on an I/O thread, possibly an event loop
+      failed = true;
+      Log.error("Cannot roll journal, journaling stopped: %s", e);
+    }
+    try {
+      full.file.close();  // the mapping stays valid for writers still copying into it
+    } catch (IOException ignored) {
+      // The mapping holds the data; the OS writes it back
+    }
+  }
+
+  private static void writeHeader(MappedByteBuffer buffer, int pos, int length,
+      long connection) {
+    buffer.putInt(pos + 4, length);
+    buffer.putLong(pos + 8, connection);
+    buffer.putLong(pos + 16, EPOCH_OFFSET_NANOS + System.nanoTime());
+  }
+
+  private static void publish(MappedByteBuffer buffer, int pos, int length) {
+    INT.setRelease(buffer, pos, recordSize(length));
+  }
+
+  static int recordSize(int length) {
+    return (RECORD_HEADER + length + 7) & ~7;
+  }
+
+  /**
+   * Writes the current segment's pages to disk. Further records are still accepted.
+   */
+  void force() {
+    current.buffer.force();
+  }
+
+  // ─────────────────────────────────────────────────────────────────────────
+  // Files
+  // ─────────────────────────────────────────────────────────────────────────
+
+  static Path segmentPath(Path directory, int index) {
+    return directory.resolve(String.format("journal-%06d.log", index));
+  }
+
+  /**
+   * The journal's segment files in write order.
+   */
+  static List<Path> segments(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(p -> p.getFileName().toString().matches("journal-\\d{6}\\.log"))
+          .sorted()
+          .toList();
+    }
+  }
+
+  private static int lastIndex(Path directory) throws IOException {
+    List<Path> existing = segments(directory);
+    if (existing.isEmpty()) {
+      return 0;
+    }
+    String name = existing.get(existing.size() - 1).getFileName().toString();
+    return Integer.parseInt(name.substring(8, 14));
+  }
+
+  private static Segment mapSegment(Path directory, int index) throws IOException {
+    FileChannel file = FileChannel.open(segmentPath(directory, index),
+        StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    MappedByteBuffer buffer;
+    try {
+      buffer = file.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+    } catch (IOException | RuntimeException e) {
+      file.close();
+      throw e;
+    }
+    buffer.order(ORDER);
+    buffer.putInt(0, MAGIC);
+    buffer.putInt(4, VERSION);
+    return new Segment(index, file, buffer);
+  }
+
+}